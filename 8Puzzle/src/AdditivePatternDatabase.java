@@ -0,0 +1,49 @@
+import java.util.Arrays;
+
+/*
+ * Sum of pattern databases over disjoint groups of tiles, plus the Manhattan
+ * distance of the tiles no group covers. Each part only counts moves of its own
+ * tiles, so the sum is still a lower bound.
+ */
+public class AdditivePatternDatabase implements Heuristic {
+
+    private final PatternDatabase[] databases;
+    // tiles not covered by any database
+    private final boolean[] uncovered;
+
+    public AdditivePatternDatabase(int n, PatternDatabase... databases) {
+        this.databases = databases.clone();
+        this.uncovered = new boolean[n * n];
+
+        Arrays.fill(uncovered, 1, n * n, true);
+        for (PatternDatabase database : databases) {
+            if (database.dimension() != n) {
+                throw new IllegalArgumentException("The patterns must be for the same puzzle size");
+            }
+            for (int tile : database.tiles()) {
+                if (tile >= uncovered.length || !uncovered[tile]) {
+                    throw new IllegalArgumentException("The patterns must be disjoint tiles of the puzzle");
+                }
+                uncovered[tile] = false;
+            }
+        }
+    }
+
+    @Override
+    public int estimate(TileGrid position) {
+        int estimate = 0;
+        for (PatternDatabase database : databases) {
+            estimate += database.estimate(position);
+        }
+
+        int n = position.dimension();
+        for (int cell = 0; cell < n * n; cell++) {
+            int tile = position.tileAt(cell);
+            if (uncovered[tile]) {
+                estimate += Math.abs((tile - 1) / n - cell / n) + Math.abs((tile - 1) % n - cell % n);
+            }
+        }
+
+        return estimate;
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.In;
+
+/*
+ * Solves many puzzles concurrently on a fixed pool of worker threads. Every
+ * input holds any number of puzzles one after another, each in the format read
+ * by Solver.main (n followed by the n^2 tiles); "-" reads standard input.
+ * Puzzles are read while earlier ones are solved, with at most a few per worker
+ * waiting, and one CSV row is printed as each puzzle finishes. Heuristic tables
+ * are loaded once and shared read-only by all workers.
+ *
+ * Execution: java BatchSolver [-threads k] [-strategy A_STAR|IDA_STAR|BIDIRECTIONAL]
+ *            [-heuristic manhattan|linear | -pdb file ...] inputs...
+ */
+public class BatchSolver {
+
+    // puzzles read ahead per worker
+    private static final int QUEUED_PER_WORKER = 4;
+
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    private final Solver.Strategy strategy;
+    private final Heuristic heuristic;
+
+    public BatchSolver(int threads, Solver.Strategy strategy, Heuristic heuristic) {
+
+        if (threads <= 0 || strategy == null || heuristic == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.slots = new Semaphore(threads * QUEUED_PER_WORKER);
+        this.strategy = strategy;
+        this.heuristic = heuristic;
+    }
+
+    // reads every puzzle of the input and queues it, blocking while the workers are busy
+    public void solveAll(String name, In in) throws InterruptedException {
+        int index = 0;
+
+        while (!in.isEmpty()) {
+            int n = in.readInt();
+            int[][] tiles = new int[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    tiles[i][j] = in.readInt();
+
+            String puzzle = name + "#" + index++;
+            Board board = new Board(tiles);
+
+            slots.acquire();
+            workers.execute(() -> {
+                try {
+                    solve(puzzle, board);
+                } catch (RuntimeException e) {
+                    System.err.println(puzzle + ": " + e.getMessage());
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private void solve(String puzzle, Board board) {
+        long start = System.nanoTime();
+        Solver solver = new Solver(board, strategy, heuristic);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        // one println per row keeps rows from different workers whole
+        System.out.println(puzzle + "," + board.dimension() + "," + solver.moves() + ","
+                + solver.expandedNodes() + "," + micros);
+    }
+
+    // waits for the queued puzzles and stops the workers
+    public void finish() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private static Heuristic heuristicNamed(String name) {
+        if (name.equals("manhattan")) {
+            return Heuristic.MANHATTAN;
+        }
+        if (name.equals("linear")) {
+            return new LinearConflict();
+        }
+        throw new IllegalArgumentException("Unknown heuristic " + name);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Solver.Strategy strategy = Solver.Strategy.A_STAR;
+        Heuristic heuristic = Heuristic.MANHATTAN;
+        boolean heuristicGiven = false;
+        List<PatternDatabase> databases = new ArrayList<PatternDatabase>();
+        int first = 0;
+
+        while (first < args.length && args[first].startsWith("-") && !args[first].equals("-")) {
+            String option = args[first++];
+            if (option.equals("-threads")) {
+                threads = Integer.parseInt(args[first++]);
+            } else if (option.equals("-strategy")) {
+                strategy = Solver.Strategy.valueOf(args[first++]);
+            } else if (option.equals("-heuristic")) {
+                heuristic = heuristicNamed(args[first++]);
+                heuristicGiven = true;
+            } else if (option.equals("-pdb")) {
+                databases.add(PatternDatabase.load(Paths.get(args[first++])));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        if (heuristicGiven && !databases.isEmpty()) {
+            throw new IllegalArgumentException("-heuristic and -pdb cannot be combined");
+        }
+        if (!databases.isEmpty()) {
+            int n = databases.get(0).dimension();
+            heuristic = new AdditivePatternDatabase(n, databases.toArray(new PatternDatabase[0]));
+        }
+
+        BatchSolver batch = new BatchSolver(threads, strategy, heuristic);
+        System.out.println("puzzle,n,moves,expanded_nodes,micros");
+
+        try {
+            for (int i = first; i < args.length; i++) {
+                In in = args[i].equals("-") ? new In() : new In(args[i]);
+                batch.solveAll(args[i], in);
+            }
+        } finally {
+            batch.finish();
+        }
+    }
+}
@@ -1,30 +1,131 @@
-
-import java.util.ArrayList;
 import java.util.Arrays;
-
-public class Board {
-
-    private final int[][] tiles;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class Board implements TileGrid {
+
+    // directions the blank can move in, opposite directions differ in the lowest bit
+    static final int UP = 0;
+    static final int DOWN = 1;
+    static final int LEFT = 2;
+    static final int RIGHT = 3;
+    static final int NONE = -1;
+
+    // boards up to 4-by-4 keep their tiles as 4-bit fields of a single long
+    private static final int MAX_PACKED_DIMENSION = 4;
+    // up to 16-by-16 every tile fits in one unsigned byte, larger boards use two
+    private static final int MAX_NARROW_DIMENSION = 16;
+
+    private final int n;
+    // tile at row-major index i in bits 4i .. 4i + 3; only used when cells is null
+    private final long packed;
+    // tiles in row-major order for boards larger than 4-by-4
+    private final byte[] cells;
+    // row-major index of the blank square
+    private final int blank;
+
+    // distances to the goal, computed once and updated per move by neighbours
+    private final int hamming;
+    private final int manhattan;
 
     /*
      * create a board from an n-by-n array of tiles, where tiles[row][col] = tile at
      * (row, col)
      */
     public Board(int[][] tiles) {
-        this.tiles = copyArray(tiles);
-    }
+        this.n = tiles.length;
+
+        long packed = 0;
+        byte[] cells = n > MAX_PACKED_DIMENSION ? new byte[n > MAX_NARROW_DIMENSION ? 2 * n * n : n * n] : null;
+        int blank = 0;
+        int hamming = 0;
+        int manhattan = 0;
 
-    // a copy of the given array
-    private int[][] copyArray(int[][] arr) {
-        int[][] copy = new int[arr.length][arr.length];
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int index = row * n + col;
+                int tile = tiles[row][col];
 
-        for (int row = 0; row < arr.length; row++) {
-            for (int col = 0; col < arr.length; col++) {
-                copy[row][col] = arr[row][col];
+                if (tile == 0) {
+                    blank = index;
+                }
+                hamming += hammingOf(tile, index);
+                manhattan += manhattanOf(tile, index);
+
+                if (cells == null) {
+                    packed |= (long) tile << (index << 2);
+                } else if (n <= MAX_NARROW_DIMENSION) {
+                    cells[index] = (byte) tile;
+                } else {
+                    cells[2 * index] = (byte) (tile >>> 8);
+                    cells[2 * index + 1] = (byte) tile;
+                }
             }
         }
 
-        return copy;
+        this.packed = packed;
+        this.cells = cells;
+        this.blank = blank;
+        this.hamming = hamming;
+        this.manhattan = manhattan;
+    }
+
+    /*
+     * a copy of the given board with the tiles at the two indices exchanged. Only
+     * those two tiles move, so the distances follow from the parent's in O(1)
+     */
+    private Board(Board board, int index1, int index2) {
+        this.n = board.n;
+
+        int tile1 = board.tileAt(index1);
+        int tile2 = board.tileAt(index2);
+
+        if (board.cells == null) {
+            long difference = tile1 ^ tile2;
+            this.packed = board.packed ^ difference << (index1 << 2) ^ difference << (index2 << 2);
+            this.cells = null;
+        } else {
+            this.packed = 0;
+            this.cells = board.cells.clone();
+            setTile(cells, index1, tile2);
+            setTile(cells, index2, tile1);
+        }
+
+        if (board.blank == index1) {
+            this.blank = index2;
+        } else if (board.blank == index2) {
+            this.blank = index1;
+        } else {
+            this.blank = board.blank;
+        }
+
+        this.hamming = board.hamming
+                - hammingOf(tile1, index1) - hammingOf(tile2, index2)
+                + hammingOf(tile1, index2) + hammingOf(tile2, index1);
+        this.manhattan = board.manhattan
+                - manhattanOf(tile1, index1) - manhattanOf(tile2, index2)
+                + manhattanOf(tile1, index2) + manhattanOf(tile2, index1);
+    }
+
+    // tile at the given row-major index, 0 for the blank
+    @Override
+    public int tileAt(int index) {
+        if (cells == null) {
+            return (int) (packed >>> (index << 2)) & 0xF;
+        }
+        if (n <= MAX_NARROW_DIMENSION) {
+            return cells[index] & 0xFF;
+        }
+        return (cells[2 * index] & 0xFF) << 8 | cells[2 * index + 1] & 0xFF;
+    }
+
+    private void setTile(byte[] cells, int index, int tile) {
+        if (n <= MAX_NARROW_DIMENSION) {
+            cells[index] = (byte) tile;
+        } else {
+            cells[2 * index] = (byte) (tile >>> 8);
+            cells[2 * index + 1] = (byte) tile;
+        }
     }
 
     @Override
@@ -36,18 +137,41 @@ public class Board {
         if (getClass() != obj.getClass())
             return false;
         Board other = (Board) obj;
-        if (!Arrays.deepEquals(tiles, other.tiles))
-            return false;
-        return true;
+        return n == other.n && packed == other.packed && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        if (cells == null) {
+            // spread the nibbles before folding them into an int
+            return Long.hashCode(packed * 0x9E3779B97F4A7C15L);
+        }
+        return Arrays.hashCode(cells);
+    }
+
+    /*
+     * 64-bit key of the tile layout, never 0. It is the packed tiles themselves up
+     * to 4-by-4, so equal keys mean equal boards; larger boards use an FNV-1a hash.
+     */
+    long key() {
+        if (cells == null) {
+            return packed;
+        }
+
+        long hash = 0xCBF29CE484222325L;
+        for (byte cell : cells) {
+            hash = (hash ^ (cell & 0xFF)) * 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
     }
 
     // string representation of this board
     public String toString() {
-        StringBuilder tilesString = new StringBuilder(tiles.length + "\n");
+        StringBuilder tilesString = new StringBuilder(n + "\n");
 
-        for (int row = 0; row < tiles.length; row++) {
-            for (int col = 0; col < tiles.length; col++) {
-                tilesString.append(String.format("%2d ", tiles[row][col]));
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                tilesString.append(String.format("%2d ", tileAt(row * n + col)));
             }
             tilesString.append("\n");
         }
@@ -56,95 +180,170 @@ public class Board {
     }
 
     // board dimension n
+    @Override
     public int dimension() {
-        return tiles.length;
+        return n;
     }
 
     // number of tiles out of place
     public int hamming() {
-        int distance = 0;
-
-        for (int row = 0; row < tiles.length; row++) {
-            for (int col = 0; col < tiles.length; col++) {
-                if (tiles[row][col] != 0 && tiles[row][col] != (row * tiles.length) + col + 1) {
-                    distance += 1;
-                }
-            }
-        }
-
-        return distance;
+        return hamming;
     }
 
     // sum of Manhattan distances between tiles and goal
+    @Override
     public int manhattan() {
-        int distance = 0;
-
-        for (int row = 0; row < tiles.length; row++) {
-            for (int col = 0; col < tiles.length; col++) {
-                if (tiles[row][col] != 0 && tiles[row][col] != (row * tiles.length) + col + 1) {
-                    distance += calculateManhattan(row, col, tiles[row][col]);
-                }
-            }
-        }
+        return manhattan;
+    }
 
-        return distance;
+    // 1 if the tile is out of place at the given index, the blank never counts
+    private int hammingOf(int tile, int index) {
+        return tile != 0 && tile != index + 1 ? 1 : 0;
     }
 
-    // calculates the Manhattan distance for the given tile
-    private int calculateManhattan(int row, int col, int tile) {
-        int realRow = (tile - 1) / tiles.length;
-        int realCol = (tile - 1) % tiles.length;
-        return Math.abs(realRow - row) + Math.abs(realCol - col);
+    // Manhattan distance of the tile at the given index from its goal, 0 for the blank
+    private int manhattanOf(int tile, int index) {
+        if (tile == 0) {
+            return 0;
+        }
+        int realRow = (tile - 1) / n;
+        int realCol = (tile - 1) % n;
+        return Math.abs(realRow - index / n) + Math.abs(realCol - index % n);
     }
 
     // is this board the goal board?
     public boolean isGoal() {
-        return this.hamming() == 0;
+        return this.manhattan == 0;
     }
 
-    // all neighboring boards
+    /*
+     * can the goal be reached from this board? For odd n it can when the number of
+     * inversions among the tiles (blank excluded) is even, for even n when the
+     * inversions plus the row of the blank are odd. The inversions are counted
+     * with a Fenwick tree over the tile values in O(n^2 log n).
+     */
+    boolean isSolvable() {
+        int[] tree = new int[n * n];
+        long inversions = 0;
+        int seen = 0;
+
+        for (int index = 0; index < n * n; index++) {
+            int tile = tileAt(index);
+            if (tile == 0) {
+                continue;
+            }
+
+            // tiles seen so far that are not greater than this one
+            int notGreater = 0;
+            for (int i = tile; i > 0; i -= i & -i) {
+                notGreater += tree[i];
+            }
+            inversions += seen - notGreater;
+
+            for (int i = tile; i < tree.length; i += i & -i) {
+                tree[i]++;
+            }
+            seen++;
+        }
+
+        if (n % 2 == 1) {
+            return inversions % 2 == 0;
+        }
+        return (inversions + blank / n) % 2 == 1;
+    }
+
+    // all neighboring boards, each one built only when the iterator reaches it
     public Iterable<Board> neighbors() {
-        int[][] neighborDirections = { { 0, 1 }, { 0, -1 }, { 1, 0 }, { -1, 0 } };
-        ArrayList<Board> neighbors = new ArrayList<Board>();
+        return NeighborIterator::new;
+    }
 
-        for (int row = 0; row < tiles.length; row++) {
-            for (int col = 0; col < tiles.length; col++) {
+    // order in which neighbors() visits the moves of the blank
+    private static final int[] NEIGHBOR_ORDER = { RIGHT, LEFT, DOWN, UP };
 
-                if (tiles[row][col] == 0) {
-                    for (int[] direction : neighborDirections) {
-                        int neighborRow = row + direction[0];
-                        int neighborCol = col + direction[1];
+    private class NeighborIterator implements Iterator<Board> {
+        int i = skipBlocked(0);
 
-                        if (isInBoundaries(neighborRow, neighborCol)) {
-                            neighbors.add(new Board(swapTiles(row, col, neighborRow, neighborCol)));
-                        }
-                    }
-                }
+        // the first position in NEIGHBOR_ORDER from i on whose move is possible
+        private int skipBlocked(int i) {
+            while (i < NEIGHBOR_ORDER.length && !canMove(NEIGHBOR_ORDER[i])) {
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return i < NEIGHBOR_ORDER.length;
+        }
+
+        @Override
+        public Board next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+
+            Board neighbor = move(NEIGHBOR_ORDER[i]);
+            i = skipBlocked(i + 1);
+            return neighbor;
         }
+    }
 
-        return neighbors;
+    // the move that undoes the given one, NONE for NONE
+    static int opposite(int direction) {
+        return direction == NONE ? NONE : direction ^ 1;
     }
 
-    /*
-     * check if the given row and column positions are in the boundaries of the
-     * tiles
-     */
-    private boolean isInBoundaries(int row, int col) {
-        return row >= 0 && row < tiles.length && col >= 0 && col < tiles.length;
+    // can the blank move in the given direction?
+    boolean canMove(int direction) {
+        return canMove(n, blank, direction);
     }
 
-    /*
-     * return a copy of the tiles with exchanged values for the given pairs of tiles
-     */
-    private int[][] swapTiles(int row1, int col1, int row2, int col2) {
-        int[][] swappedTiles = copyArray(tiles);
+    // can a blank at the given index of an n-by-n board move in the given direction?
+    static boolean canMove(int n, int blank, int direction) {
+        switch (direction) {
+            case UP:
+                return blank >= n;
+            case DOWN:
+                return blank < n * n - n;
+            case LEFT:
+                return blank % n > 0;
+            default:
+                return blank % n < n - 1;
+        }
+    }
+
+    // change of the blank's index when it moves in the given direction
+    static int offset(int n, int direction) {
+        switch (direction) {
+            case UP:
+                return -n;
+            case DOWN:
+                return n;
+            case LEFT:
+                return -1;
+            default:
+                return 1;
+        }
+    }
+
+    // row-major index of the blank square
+    int blank() {
+        return blank;
+    }
 
-        int temp = swappedTiles[row1][col1];
-        swappedTiles[row1][col1] = swappedTiles[row2][col2];
-        swappedTiles[row2][col2] = temp;
+    // index the blank lands on when it moves in the given direction
+    int blankAfter(int direction) {
+        return blank + offset(n, direction);
+    }
 
-        return swappedTiles;
+    // the neighbour reached by moving the blank in the given direction, which must be possible
+    Board move(int direction) {
+        return new Board(this, blank, blankAfter(direction));
+    }
+
+    // a copy of this board that can make and undo moves in place
+    MutableBoard toMutable() {
+        return new MutableBoard(this);
     }
 
     /*
@@ -156,11 +355,11 @@ public class Board {
 
     public Board twin() {
 
-        if (tiles[0][0] != 0 && tiles[0][1] != 0) {
-            return new Board(swapTiles(0, 0, 0, 1));
+        if (blank != 0 && blank != 1) {
+            return new Board(this, 0, 1);
         }
 
-        return new Board(swapTiles(1, 0, 1, 1));
+        return new Board(this, n, n + 1);
     }
 
     // unit testing (not graded)
@@ -171,9 +370,11 @@ public class Board {
         System.out.println(b);
         System.out.println(b.hamming());
         System.out.println(b.manhattan());
-        System.out.println(b.neighbors());
+        for (Board neighbor : b.neighbors()) {
+            System.out.println(neighbor);
+        }
         System.out.println(b.twin());
 
     }
 
-}
\ No newline at end of file
+}
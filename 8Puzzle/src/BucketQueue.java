@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/*
+ * Priority queue for A* search nodes whose priorities are small non-negative
+ * integers. Nodes live in a pool of parallel arrays and are referred to by
+ * index, so there is no object per node besides its board. A node stays in the
+ * pool after it leaves the queue, which keeps parent links valid for rebuilding
+ * the solution path.
+ *
+ * Nodes are bucketed by priority f and, within a bucket, by moves g, each list
+ * kept as a stack threaded through next[]. Insert is O(1); delMin takes the
+ * smallest f and, among those, the largest g, so ties go to deeper nodes.
+ */
+class BucketQueue {
+
+    private static final int NONE = -1;
+
+    // node pool
+    private Board[] boards = new Board[1024];
+    private int[] moves = new int[1024];
+    private int[] parents = new int[1024];
+    private int[] next = new int[1024];
+    private int nodes;
+
+    // heads[f][g] is the last node inserted with that priority and move count
+    private int[][] heads = new int[0][];
+    // queued nodes per priority
+    private int[] counts = new int[0];
+    private int minPriority = Integer.MAX_VALUE;
+    private int queued;
+
+    // adds a node and returns its index, parent is NONE for the root
+    int insert(Board board, int moves, int parent, int priority) {
+        if (nodes == boards.length) {
+            int capacity = 2 * nodes;
+            boards = Arrays.copyOf(boards, capacity);
+            this.moves = Arrays.copyOf(this.moves, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        if (priority >= heads.length) {
+            growPriorities(priority);
+        }
+
+        int node = nodes++;
+        boards[node] = board;
+        this.moves[node] = moves;
+        parents[node] = parent;
+
+        // a heuristic never below 0 means moves <= priority
+        next[node] = heads[priority][moves];
+        heads[priority][moves] = node;
+        counts[priority]++;
+        queued++;
+        minPriority = Math.min(minPriority, priority);
+
+        return node;
+    }
+
+    private void growPriorities(int priority) {
+        int size = Math.max(priority + 1, 2 * heads.length);
+        int old = heads.length;
+
+        heads = Arrays.copyOf(heads, size);
+        counts = Arrays.copyOf(counts, size);
+        for (int f = old; f < size; f++) {
+            heads[f] = new int[f + 1];
+            Arrays.fill(heads[f], NONE);
+        }
+    }
+
+    boolean isEmpty() {
+        return queued == 0;
+    }
+
+    // smallest priority in the queue
+    int minPriority() {
+        if (queued == 0) {
+            throw new NoSuchElementException();
+        }
+
+        while (counts[minPriority] == 0) {
+            minPriority++;
+        }
+        return minPriority;
+    }
+
+    // removes and returns the node with the smallest priority, the deepest one on ties
+    int delMin() {
+        minPriority();
+
+        int[] bucket = heads[minPriority];
+        int g = bucket.length - 1;
+        while (bucket[g] == NONE) {
+            g--;
+        }
+
+        int node = bucket[g];
+        bucket[g] = next[node];
+        counts[minPriority]--;
+        queued--;
+
+        return node;
+    }
+
+    Board board(int node) {
+        return boards[node];
+    }
+
+    int moves(int node) {
+        return moves[node];
+    }
+
+    // index of the node this one was expanded from, NONE for the root
+    int parent(int node) {
+        return parents[node];
+    }
+
+    // nodes created so far
+    int size() {
+        return nodes;
+    }
+}
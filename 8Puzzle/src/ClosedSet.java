@@ -0,0 +1,102 @@
+/*
+ * Bounded closed set for the A* search: remembers the fewest moves with which
+ * each board key was expanded. It is an open-addressing table of fixed size;
+ * when all slots a key may use are taken, the entry reached with the most moves
+ * is evicted. Losing an entry only costs a re-expansion. Up to 4-by-4 a key is
+ * the board itself, so pruning is exact; beyond that it is a 64-bit hash, and a
+ * collision would prune a board that was never expanded and could cost the
+ * optimal path, so there the answer is optimal only with high probability.
+ */
+class ClosedSet {
+
+    // slots examined per key before an entry is evicted
+    private static final int PROBES = 4;
+    // no board has key 0, see Board.key()
+    private static final long EMPTY = 0;
+
+    private final long[] keys;
+    private final int[] moves;
+    private final int mask;
+
+    private long duplicatesPruned;
+    private long evictions;
+
+    // a table with room for at least the given number of boards
+    ClosedSet(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, PROBES) - 1) << 1;
+        this.keys = new long[size];
+        this.moves = new int[size];
+        this.mask = size - 1;
+    }
+
+    // was the board already expanded with at most the given number of moves?
+    boolean contains(long key, int moves) {
+        int slot = slotOf(key);
+
+        for (int probe = 0; probe < PROBES; probe++) {
+            int i = (slot + probe) & mask;
+            if (keys[i] == key) {
+                if (this.moves[i] <= moves) {
+                    duplicatesPruned++;
+                    return true;
+                }
+                return false;
+            }
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /*
+     * records the board as expanded with the given number of moves. Returns false,
+     * and counts a pruned duplicate, if it was already expanded with at most as
+     * many moves.
+     */
+    boolean add(long key, int moves) {
+        int slot = slotOf(key);
+        int victim = slot;
+
+        for (int probe = 0; probe < PROBES; probe++) {
+            int i = (slot + probe) & mask;
+            if (keys[i] == key) {
+                if (this.moves[i] <= moves) {
+                    duplicatesPruned++;
+                    return false;
+                }
+                this.moves[i] = moves;
+                return true;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                this.moves[i] = moves;
+                return true;
+            }
+            if (this.moves[i] > this.moves[victim]) {
+                victim = i;
+            }
+        }
+
+        keys[victim] = key;
+        this.moves[victim] = moves;
+        evictions++;
+        return true;
+    }
+
+    private int slotOf(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & mask;
+    }
+
+    // boards skipped because they had been expanded with as few moves before
+    long duplicatesPruned() {
+        return duplicatesPruned;
+    }
+
+    // entries dropped to make room for new ones
+    long evictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+ * Estimate of the moves left to the goal, used by Solver to order its search.
+ * It must never overestimate, or the solutions found are no longer shortest.
+ */
+public interface Heuristic {
+
+    // sum of Manhattan distances, which every position keeps up to date itself
+    Heuristic MANHATTAN = TileGrid::manhattan;
+
+    // lower bound on the number of moves from the position to the goal
+    int estimate(TileGrid position);
+}
@@ -0,0 +1,57 @@
+/*
+ * Manhattan distance plus linear conflicts. Tiles that sit in their goal row
+ * (or column) but in the wrong order must partly leave that line to pass each
+ * other: for every line, the tiles outside the longest correctly ordered
+ * subsequence each need two extra moves.
+ */
+public class LinearConflict implements Heuristic {
+
+    @Override
+    public int estimate(TileGrid position) {
+        int n = position.dimension();
+        int[] goals = new int[n];
+        int extra = 0;
+
+        for (int line = 0; line < n; line++) {
+            // goal columns of the tiles in this row whose goal is this row
+            int count = 0;
+            for (int col = 0; col < n; col++) {
+                int tile = position.tileAt(line * n + col);
+                if (tile != 0 && (tile - 1) / n == line) {
+                    goals[count++] = (tile - 1) % n;
+                }
+            }
+            extra += count - longestIncreasing(goals, count);
+
+            // goal rows of the tiles in this column whose goal is this column
+            count = 0;
+            for (int row = 0; row < n; row++) {
+                int tile = position.tileAt(row * n + line);
+                if (tile != 0 && (tile - 1) % n == line) {
+                    goals[count++] = (tile - 1) / n;
+                }
+            }
+            extra += count - longestIncreasing(goals, count);
+        }
+
+        return position.manhattan() + 2 * extra;
+    }
+
+    // length of the longest increasing subsequence of the first count values
+    private static int longestIncreasing(int[] values, int count) {
+        int[] lengths = new int[count];
+        int longest = 0;
+
+        for (int i = 0; i < count; i++) {
+            lengths[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (values[j] < values[i] && lengths[j] + 1 > lengths[i]) {
+                    lengths[i] = lengths[j] + 1;
+                }
+            }
+            longest = Math.max(longest, lengths[i]);
+        }
+
+        return longest;
+    }
+}
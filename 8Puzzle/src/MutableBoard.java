@@ -0,0 +1,80 @@
+/*
+ * A board that changes in place, for depth-first search engines that make and
+ * undo moves instead of allocating a Board per neighbour. Moves are named after
+ * the direction the blank travels (Board.UP etc.), and the Manhattan distance is
+ * kept up to date on every move.
+ */
+class MutableBoard implements TileGrid {
+
+    private final int n;
+    private final int[] tiles;
+    private int blank;
+    private int manhattan;
+
+    MutableBoard(Board board) {
+        this.n = board.dimension();
+        this.tiles = new int[n * n];
+
+        for (int index = 0; index < tiles.length; index++) {
+            tiles[index] = board.tileAt(index);
+            if (tiles[index] == 0) {
+                blank = index;
+            }
+        }
+        this.manhattan = board.manhattan();
+    }
+
+    // can the blank move in the given direction?
+    boolean canMove(int direction) {
+        return Board.canMove(n, blank, direction);
+    }
+
+    // moves the blank in the given direction, which must be possible
+    void move(int direction) {
+        int target = blank + Board.offset(n, direction);
+        int tile = tiles[target];
+
+        manhattan += distance(tile, blank) - distance(tile, target);
+        tiles[blank] = tile;
+        tiles[target] = 0;
+        blank = target;
+    }
+
+    // takes back a move made in the given direction
+    void undo(int direction) {
+        move(Board.opposite(direction));
+    }
+
+    // Manhattan distance of the tile at the given index from its goal
+    private int distance(int tile, int index) {
+        return Math.abs((tile - 1) / n - index / n) + Math.abs((tile - 1) % n - index % n);
+    }
+
+    @Override
+    public int dimension() {
+        return n;
+    }
+
+    @Override
+    public int tileAt(int index) {
+        return tiles[index];
+    }
+
+    @Override
+    public int manhattan() {
+        return manhattan;
+    }
+
+    boolean isGoal() {
+        return manhattan == 0;
+    }
+
+    // an immutable copy of the current position
+    Board toBoard() {
+        int[][] copy = new int[n][n];
+        for (int index = 0; index < tiles.length; index++) {
+            copy[index / n][index % n] = tiles[index];
+        }
+        return new Board(copy);
+    }
+}
@@ -0,0 +1,328 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * Pattern database for a group of tiles: for every placement of those tiles it
+ * holds the fewest moves of them needed to bring all of them home, ignoring the
+ * other tiles except as space for the blank. Only moves of pattern tiles count,
+ * so databases over disjoint groups can be added up (AdditivePatternDatabase).
+ *
+ * The table has one byte per placement of the pattern tiles, indexed by the
+ * rank of the placement as a partial permutation of the cells, so a 6-tile
+ * database of the 15-puzzle takes 16!/10! bytes rather than 16^6. It is
+ * computed by a 0-1 breadth-first search back from the goal, and can be saved
+ * to a file and memory-mapped again, so a large table is built once and costs
+ * no startup time afterwards.
+ *
+ * Execution: java PatternDatabase n file tile1 tile2 ...
+ */
+public class PatternDatabase implements Heuristic {
+
+    private static final int MAGIC = 0x50444232; // "PDB2"
+
+    // a placement packs the cell of the i-th pattern tile into bits 6i .. 6i + 5
+    private static final int CELL_BITS = 6;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    // boards up to 8-by-8, so the cells taken so far fit in the bits of a long
+    private static final int MAX_CELLS = Long.SIZE;
+
+    private final int n;
+    private final int[] tiles;
+    // slot[tile] is the tile's position in tiles, -1 for other tiles
+    private final int[] slot;
+    private final ByteBuffer table;
+
+    // builds the database for the given tiles of an n-by-n puzzle
+    public PatternDatabase(int n, int... tiles) {
+        this(n, tiles, null);
+        build();
+    }
+
+    private PatternDatabase(int n, int[] tiles, ByteBuffer table) {
+        int cells = n * n;
+
+        if (n < 2 || cells > MAX_CELLS || tiles.length == 0) {
+            throw new IllegalArgumentException("Pattern databases are for 2-by-2 up to 8-by-8 boards");
+        }
+
+        this.n = n;
+        this.tiles = tiles.clone();
+        this.slot = new int[cells];
+        Arrays.fill(slot, -1);
+
+        long entries = 1;
+        for (int i = 0; i < tiles.length; i++) {
+            int tile = tiles[i];
+            if (tile <= 0 || tile >= cells || slot[tile] != -1) {
+                throw new IllegalArgumentException("Invalid pattern tile " + tile);
+            }
+            slot[tile] = i;
+            entries *= cells - i;
+        }
+        if (entries > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern too large for the table");
+        }
+
+        this.table = table != null ? table : ByteBuffer.allocate((int) entries);
+        if (this.table.capacity() != entries) {
+            throw new IllegalArgumentException("Table size does not match the pattern");
+        }
+    }
+
+    /*
+     * 0-1 breadth-first search over (pattern placement, blank position). Moving
+     * the blank onto a free cell costs nothing, moving a pattern tile costs one
+     * move. The state index has the blank as its most significant digit and needs
+     * a byte per state, which limits the patterns that can be built in memory;
+     * loading a saved table has no such limit.
+     */
+    private void build() {
+        int cells = n * n;
+        int entries = table.capacity();
+        if ((long) entries * cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern too large to build in memory");
+        }
+
+        byte[] distance = new byte[entries * cells];
+        Arrays.fill(distance, (byte) -1);
+
+        for (int i = 0; i < entries; i++) {
+            table.put(i, (byte) -1);
+        }
+
+        long goal = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            goal |= (long) (tiles[i] - 1) << (CELL_BITS * i);
+        }
+
+        IntDeque deque = new IntDeque();
+        int start = (cells - 1) * entries + rank(goal);
+        distance[start] = 0;
+        deque.addFirst(start);
+
+        while (!deque.isEmpty()) {
+            int state = deque.removeFirst();
+            int cost = distance[state] & 0xFF;
+            int pattern = state % entries;
+            int blank = state / entries;
+
+            if ((table.get(pattern) & 0xFF) > cost) {
+                table.put(pattern, (byte) cost);
+            }
+
+            long placement = placement(pattern);
+
+            for (int step = 0; step < 4; step++) {
+                int target = neighbour(blank, step);
+                if (target < 0) {
+                    continue;
+                }
+
+                // the blank swaps with whatever is at target
+                int next = target * entries + pattern;
+                int nextCost = cost;
+                for (int i = 0; i < tiles.length; i++) {
+                    int shift = CELL_BITS * i;
+                    if ((placement >>> shift & CELL_MASK) == target) {
+                        long moved = placement & ~((long) CELL_MASK << shift) | (long) blank << shift;
+                        next = target * entries + rank(moved);
+                        nextCost++;
+                        break;
+                    }
+                }
+
+                int known = distance[next] & 0xFF;
+                if (nextCost < known) {
+                    distance[next] = (byte) nextCost;
+                    if (nextCost == cost) {
+                        deque.addFirst(next);
+                    } else {
+                        deque.addLast(next);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * index of a placement: the i-th tile's cell counted among the cells the
+     * tiles before it left free, read as a number with digits in base n^2 - i
+     */
+    private int rank(long placement) {
+        int cells = n * n;
+        long taken = 0;
+        int rank = 0;
+
+        for (int i = 0; i < tiles.length; i++) {
+            int cell = (int) (placement >>> (CELL_BITS * i)) & CELL_MASK;
+            rank = rank * (cells - i) + cell - Long.bitCount(taken & ((1L << cell) - 1));
+            taken |= 1L << cell;
+        }
+        return rank;
+    }
+
+    // the placement with the given rank, the inverse of rank()
+    private long placement(int rank) {
+        int cells = n * n;
+        int[] free = new int[tiles.length];
+        for (int i = tiles.length - 1; i >= 0; i--) {
+            free[i] = rank % (cells - i);
+            rank /= cells - i;
+        }
+
+        long taken = 0;
+        long placement = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            // the free[i]-th cell not taken yet
+            int cell = -1;
+            for (int skipped = -1; skipped < free[i]; ) {
+                cell++;
+                if ((taken & 1L << cell) == 0) {
+                    skipped++;
+                }
+            }
+            taken |= 1L << cell;
+            placement |= (long) cell << (CELL_BITS * i);
+        }
+        return placement;
+    }
+
+    // the cell the blank reaches in the given direction, or -1 at the edge
+    private int neighbour(int blank, int step) {
+        switch (step) {
+            case 0:
+                return blank >= n ? blank - n : -1;
+            case 1:
+                return blank < n * n - n ? blank + n : -1;
+            case 2:
+                return blank % n > 0 ? blank - 1 : -1;
+            default:
+                return blank % n < n - 1 ? blank + 1 : -1;
+        }
+    }
+
+    @Override
+    public int estimate(TileGrid position) {
+        if (position.dimension() != n) {
+            throw new IllegalArgumentException("The database is for " + n + "-by-" + n + " boards");
+        }
+
+        long placement = 0;
+        for (int cell = 0; cell < n * n; cell++) {
+            int i = slot[position.tileAt(cell)];
+            if (i >= 0) {
+                placement |= (long) cell << (CELL_BITS * i);
+            }
+        }
+        return table.get(rank(placement)) & 0xFF;
+    }
+
+    // board dimension n the database is for
+    int dimension() {
+        return n;
+    }
+
+    // the pattern tiles
+    int[] tiles() {
+        return tiles.clone();
+    }
+
+    // writes the database to the file: a header with n and the tiles, then the table
+    public void save(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * (3 + tiles.length));
+        header.putInt(MAGIC).putInt(n).putInt(tiles.length);
+        for (int tile : tiles) {
+            header.putInt(tile);
+        }
+        header.flip();
+
+        ByteBuffer body = table.duplicate();
+        body.clear();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    // memory-maps a database written by save(); pages are read on first use
+    public static PatternDatabase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (mapped.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a pattern database: " + file);
+            }
+            int n = mapped.getInt();
+            int[] tiles = new int[mapped.getInt()];
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = mapped.getInt();
+            }
+
+            return new PatternDatabase(n, tiles, mapped.slice());
+        }
+    }
+
+    // growable circular deque of ints for the 0-1 search
+    private static class IntDeque {
+        private int[] items = new int[1 << 16];
+        private int head;
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void addFirst(int item) {
+            grow();
+            head = (head - 1) & (items.length - 1);
+            items[head] = item;
+            size++;
+        }
+
+        void addLast(int item) {
+            grow();
+            items[(head + size) & (items.length - 1)] = item;
+            size++;
+        }
+
+        int removeFirst() {
+            int item = items[head];
+            head = (head + 1) & (items.length - 1);
+            size--;
+            return item;
+        }
+
+        private void grow() {
+            if (size < items.length) {
+                return;
+            }
+            int[] copy = new int[2 * items.length];
+            for (int i = 0; i < size; i++) {
+                copy[i] = items[(head + i) & (items.length - 1)];
+            }
+            items = copy;
+            head = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int n = Integer.parseInt(args[0]);
+        int[] tiles = new int[args.length - 2];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = Integer.parseInt(args[i + 2]);
+        }
+
+        new PatternDatabase(n, tiles).save(Paths.get(args[1]));
+    }
+}
@@ -1,112 +1,389 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import edu.princeton.cs.algs4.In;
-import edu.princeton.cs.algs4.MinPQ;
 import edu.princeton.cs.algs4.StdOut;
 
 public class Solver {
 
+    // search engines to choose from per puzzle
+    public enum Strategy {
+        // A* over a bucket queue of search nodes, optimal and fast but keeps every node
+        A_STAR,
+        // iterative-deepening A*, optimal with memory proportional to the solution length
+        IDA_STAR,
+        // A* from both ends at once, meeting in the middle; optimal, expands fewer nodes on deep puzzles
+        BIDIRECTIONAL
+    }
+
     private ArrayList<Board> solutionPath;
     private final int moves;
     private final boolean isSolvable;
+    private final Heuristic heuristic;
+    private long duplicatesPruned;
+    private long evictions;
+    private long expandedNodes;
+
+    // find a solution to the initial board (using the A* algorithm)
+    public Solver(Board initial) {
+        this(initial, Strategy.A_STAR, Heuristic.MANHATTAN, 0);
+    }
+
+    // find a solution to the initial board using the given search engine
+    public Solver(Board initial, Strategy strategy) {
+        this(initial, strategy, Heuristic.MANHATTAN, 0);
+    }
+
+    /*
+     * find a solution to the initial board using the given search engine guided by
+     * the given heuristic, e.g. a LinearConflict or an AdditivePatternDatabase
+     */
+    public Solver(Board initial, Strategy strategy, Heuristic heuristic) {
+        this(initial, strategy, heuristic, 0);
+    }
+
+    /*
+     * find a solution to the initial board, skipping boards already expanded with
+     * as few moves. The closed set remembers at most closedSetCapacity boards (0
+     * turns it off); it is exact for boards up to 4-by-4 and keyed on a 64-bit
+     * hash beyond that.
+     */
+    public Solver(Board initial, int closedSetCapacity) {
+        this(initial, Strategy.A_STAR, Heuristic.MANHATTAN, closedSetCapacity);
+    }
 
-    private class SearchNode implements Comparable<SearchNode> {
+    private Solver(Board initial, Strategy strategy, Heuristic heuristic, int closedSetCapacity) {
 
-        private final Board board;
-        private final int moves;
-        private final SearchNode previous;
+        if (initial == null || strategy == null || heuristic == null || closedSetCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
 
-        private final int manhattan;
+        this.heuristic = heuristic;
 
-        public SearchNode(Board board, int moves, SearchNode previous) {
-            this.board = board;
-            this.moves = moves;
-            this.previous = previous;
-            this.manhattan = board.manhattan(); // cache the Manhattan distance to avoid recomputing it each time during
-                                                // various priority queue operations
+        // unsolvable boards are recognised by parity, without searching
+        if (!initial.isSolvable()) {
+            isSolvable = false;
+            moves = -1;
+            solutionPath = null;
+            return;
         }
 
-        public int getPriority() {
-            return manhattan + moves;
+        if (strategy == Strategy.IDA_STAR) {
+            IterativeDeepening search = new IterativeDeepening(initial, heuristic);
+            solutionPath = search.solve();
+            expandedNodes = search.expandedNodes;
+        } else if (strategy == Strategy.BIDIRECTIONAL) {
+            BidirectionalSearch search = new BidirectionalSearch(initial, heuristic);
+            solutionPath = search.solve();
+            expandedNodes = search.expandedNodes;
+        } else {
+            aStarSearch(initial, closedSetCapacity);
         }
 
-        @Override
-        public int compareTo(Solver.SearchNode s) {
-            if (this.getPriority() > s.getPriority()) {
-                return 1;
-            } else if (this.getPriority() < s.getPriority()) {
-                return -1;
+        isSolvable = true;
+        moves = solutionPath.size() - 1;
+    }
+
+    /*
+     * A* algorithm on a solvable initial board, saving the solution path. The
+     * goal test happens when a node leaves the queue, which keeps it optimal.
+     */
+    private void aStarSearch(Board initial, int closedSetCapacity) {
+
+        BucketQueue nodes = new BucketQueue();
+        ClosedSet closed = closedSetCapacity > 0 ? new ClosedSet(closedSetCapacity) : null;
+
+        nodes.insert(initial, 0, -1, heuristic.estimate(initial));
+
+        int node = nodes.delMin();
+        while (!nodes.board(node).isGoal()) {
+            expand(nodes, node, closed);
+            node = nodes.delMin();
+        }
+
+        if (closed != null) {
+            duplicatesPruned = closed.duplicatesPruned();
+            evictions = closed.evictions();
+        }
+
+        saveSolutionPath(nodes, node);
+    }
+
+    /*
+     * inserts the neighbours of the node, leaving out its predecessor and, with a
+     * closed set, boards already expanded with as few moves
+     */
+    private void expand(BucketQueue nodes, int node, ClosedSet closed) {
+
+        Board board = nodes.board(node);
+        int moves = nodes.moves(node);
+        int parent = nodes.parent(node);
+
+        if (closed != null && !closed.add(board.key(), moves)) {
+            return;
+        }
+        expandedNodes++;
+
+        // the predecessor is recognised by where the blank would land, before any board is built
+        int back = parent >= 0 ? nodes.board(parent).blank() : -1;
+        for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+            if (!board.canMove(direction)
+                    || board.blankAfter(direction) == back) {
+                continue;
+            }
+            Board neighbor = board.move(direction);
+            if (closed != null && closed.contains(neighbor.key(), moves + 1)) {
+                continue;
             }
-            return 0;
+            nodes.insert(neighbor, moves + 1, node, moves + 1 + heuristic.estimate(neighbor));
         }
     }
 
-    // find a solution to the initial board (using the A* algorithm)
-    public Solver(Board initial) {
+    /*
+     * IDA*: depth-first searches that cut off at f = moves + estimate > bound,
+     * each round raising the bound to the smallest f that was cut off. A single
+     * board is changed in place, so memory is the current path only.
+     */
+    private static class IterativeDeepening {
+        private static final int FOUND = -1;
+
+        private final Board initial;
+        private final Heuristic heuristic;
+        private final MutableBoard board;
+        // directions of the moves on the current path
+        private int[] path = new int[64];
+        private long expandedNodes;
+
+        IterativeDeepening(Board initial, Heuristic heuristic) {
+            this.initial = initial;
+            this.heuristic = heuristic;
+            this.board = initial.toMutable();
+        }
 
-        if (initial == null) {
-            throw new IllegalArgumentException();
+        ArrayList<Board> solve() {
+            int bound = heuristic.estimate(board);
+            int length;
+
+            while ((length = search(0, bound, Board.NONE)) != FOUND) {
+                bound = length;
+            }
+
+            return replay();
         }
 
-        SearchNode lastNode = aStarSearch(initial);
+        // FOUND once the goal is reached, otherwise the smallest f beyond the bound
+        private int search(int moves, int bound, int lastDirection) {
+            int f = moves + heuristic.estimate(board);
+            if (f > bound) {
+                return f;
+            }
+            if (board.isGoal()) {
+                path = Arrays.copyOf(path, moves);
+                return FOUND;
+            }
+
+            expandedNodes++;
+            int min = Integer.MAX_VALUE;
+            for (int direction = 0; direction < 4; direction++) {
+                if (direction == Board.opposite(lastDirection) || !board.canMove(direction)) {
+                    continue;
+                }
 
-        if (lastNode != null) {
-            isSolvable = true;
-            moves = lastNode.moves;
-            saveSolutionPath(lastNode);
+                if (moves == path.length) {
+                    path = Arrays.copyOf(path, 2 * path.length);
+                }
+                path[moves] = direction;
 
-        } else {
-            isSolvable = false;
-            moves = -1;
-            solutionPath = null;
+                board.move(direction);
+                int t = search(moves + 1, bound, direction);
+                board.undo(direction);
+
+                if (t == FOUND) {
+                    return FOUND;
+                }
+                min = Math.min(min, t);
+            }
+            return min;
         }
 
+        // the boards along the path found, starting with the initial one
+        private ArrayList<Board> replay() {
+            ArrayList<Board> boards = new ArrayList<Board>();
+            MutableBoard replay = initial.toMutable();
+
+            boards.add(initial);
+            for (int direction : path) {
+                replay.move(direction);
+                boards.add(replay.toBoard());
+            }
+            return boards;
+        }
     }
 
-    // A* algorithm. If the initial board is solvable it will lead to the solution,
-    // otherwise the twin board will. If the initial board is solvable,
-    // return the last explored node, otherwise return null
-    private SearchNode aStarSearch(Board initial) {
+    /*
+     * Bidirectional A*: a forward search from the initial board guided by the
+     * heuristic and a backward search from the goal guided by the Manhattan
+     * distance to the initial board, always expanding the smaller frontier. Each
+     * board generated is looked up in the other side's best-known moves; the
+     * cheapest meeting found so far is the answer once it costs no more than the
+     * smallest priority left in either queue, because every shorter path would
+     * still have to leave both of them.
+     */
+    private static class BidirectionalSearch {
+
+        private final Board initial;
+        private final Heuristic heuristic;
+        // goal row-major index of every tile on the initial board, for the backward estimate
+        private final int[] initialIndex;
+
+        private final BucketQueue forward = new BucketQueue();
+        private final BucketQueue backward = new BucketQueue();
+        // node with the fewest moves for every board each side has generated
+        private final Map<Board, Integer> forwardBest = new HashMap<Board, Integer>();
+        private final Map<Board, Integer> backwardBest = new HashMap<Board, Integer>();
+
+        private int bestLength = Integer.MAX_VALUE;
+        private int forwardMeeting;
+        private int backwardMeeting;
+        private long expandedNodes;
+
+        BidirectionalSearch(Board initial, Heuristic heuristic) {
+            this.initial = initial;
+            this.heuristic = heuristic;
+
+            int n = initial.dimension();
+            this.initialIndex = new int[n * n];
+            for (int index = 0; index < n * n; index++) {
+                initialIndex[initial.tileAt(index)] = index;
+            }
+        }
 
-        MinPQ<SearchNode> initialNodes = new MinPQ<SearchNode>();
-        MinPQ<SearchNode> twinNodes = new MinPQ<SearchNode>();
+        ArrayList<Board> solve() {
+            Board goal = goal(initial.dimension());
 
-        initialNodes.insert(new SearchNode(initial, 0, null));
-        twinNodes.insert(new SearchNode(initial.twin(), 0, null));
+            forwardBest.put(initial, forward.insert(initial, 0, -1, heuristic.estimate(initial)));
+            backwardBest.put(goal, backward.insert(goal, 0, -1, estimateToInitial(goal)));
+            if (initial.equals(goal)) {
+                meet(0, 0, 0);
+            }
 
-        while (!initialNodes.min().board.isGoal() && !twinNodes.min().board.isGoal()) {
+            while (!forward.isEmpty() && !backward.isEmpty()
+                    && bestLength > Math.max(forward.minPriority(), backward.minPriority())) {
 
-            SearchNode currInitNode = initialNodes.delMin();
-            SearchNode currTwinNode = twinNodes.delMin();
+                if (forward.size() <= backward.size()) {
+                    expand(forward, forwardBest, backwardBest, true);
+                } else {
+                    expand(backward, backwardBest, forwardBest, false);
+                }
+            }
 
-            for (Board neighbor : currInitNode.board.neighbors()) {
-                if (currInitNode.previous == null || !neighbor.equals(currInitNode.previous.board)) {
-                    initialNodes.insert(new SearchNode(neighbor, currInitNode.moves + 1, currInitNode));
+            return path();
+        }
+
+        private void expand(BucketQueue nodes, Map<Board, Integer> best, Map<Board, Integer> otherBest,
+                boolean isForward) {
+
+            int node = nodes.delMin();
+            Board board = nodes.board(node);
+            int moves = nodes.moves(node);
+
+            // a cheaper way to this board was found after the node was queued
+            if (best.get(board) != node) {
+                return;
+            }
+            expandedNodes++;
+
+            int parent = nodes.parent(node);
+            int back = parent >= 0 ? nodes.board(parent).blank() : -1;
+            for (int direction = Board.UP; direction <= Board.RIGHT; direction++) {
+                if (!board.canMove(direction)
+                        || board.blankAfter(direction) == back) {
+                    continue;
+                }
+                Board neighbor = board.move(direction);
+
+                Integer known = best.get(neighbor);
+                if (known != null && nodes.moves(known) <= moves + 1) {
+                    continue;
+                }
+
+                int estimate = isForward ? heuristic.estimate(neighbor) : estimateToInitial(neighbor);
+                int child = nodes.insert(neighbor, moves + 1, node, moves + 1 + estimate);
+                best.put(neighbor, child);
+
+                Integer other = otherBest.get(neighbor);
+                if (other != null) {
+                    BucketQueue otherNodes = isForward ? backward : forward;
+                    int length = moves + 1 + otherNodes.moves(other);
+                    if (isForward) {
+                        meet(child, other, length);
+                    } else {
+                        meet(other, child, length);
+                    }
                 }
             }
+        }
 
-            for (Board neighbor : currTwinNode.board.neighbors()) {
-                if (currTwinNode.previous == null || !neighbor.equals(currTwinNode.previous.board)) {
-                    twinNodes.insert(new SearchNode(neighbor, currTwinNode.moves + 1, currTwinNode));
+        // records the path through the two nodes, which hold the same board, if it is the shortest yet
+        private void meet(int forwardNode, int backwardNode, int length) {
+            if (length < bestLength) {
+                bestLength = length;
+                forwardMeeting = forwardNode;
+                backwardMeeting = backwardNode;
+            }
+        }
+
+        // Manhattan distance of every tile from its place on the initial board
+        private int estimateToInitial(Board board) {
+            int n = board.dimension();
+            int distance = 0;
+
+            for (int index = 0; index < n * n; index++) {
+                int tile = board.tileAt(index);
+                if (tile != 0) {
+                    int target = initialIndex[tile];
+                    distance += Math.abs(target / n - index / n) + Math.abs(target % n - index % n);
                 }
             }
+            return distance;
         }
 
-        if (initialNodes.min().board.isGoal()) {
-            return initialNodes.min();
+        private static Board goal(int n) {
+            int[][] tiles = new int[n][n];
+            for (int index = 0; index < n * n - 1; index++) {
+                tiles[index / n][index % n] = index + 1;
+            }
+            return new Board(tiles);
         }
 
-        return null;
+        // the initial board up to the meeting board, then on to the goal
+        private ArrayList<Board> path() {
+            ArrayList<Board> boards = new ArrayList<Board>();
+
+            for (int node = forwardMeeting; node >= 0; node = forward.parent(node)) {
+                boards.add(forward.board(node));
+            }
+            Collections.reverse(boards);
+
+            for (int node = backward.parent(backwardMeeting); node >= 0; node = backward.parent(node)) {
+                boards.add(backward.board(node));
+            }
+            return boards;
+        }
     }
 
-    // reconstruct the solution path and save it
-    private void saveSolutionPath(SearchNode node) {
+    // reconstruct the solution path from the node's parent links and save it
+    private void saveSolutionPath(BucketQueue nodes, int node) {
         solutionPath = new ArrayList<Board>();
 
-        while (node != null) {
-            solutionPath.add(0, node.board);
-            node = node.previous;
+        while (node >= 0) {
+            solutionPath.add(nodes.board(node));
+            node = nodes.parent(node);
         }
+        Collections.reverse(solutionPath);
     }
 
     // is the initial board solvable? (see below)
@@ -119,12 +396,28 @@ public class Solver {
         return moves;
     }
 
+    // boards skipped by the closed set, 0 when it is off
+    public long duplicatesPruned() {
+        return duplicatesPruned;
+    }
+
+    // closed set entries overwritten for lack of room, 0 when it is off; many
+    // evictions mean closedSetCapacity is too small for the instance
+    public long evictions() {
+        return evictions;
+    }
+
+    // nodes whose neighbours the search generated, over all rounds for IDA*
+    public long expandedNodes() {
+        return expandedNodes;
+    }
+
     // sequence of boards in a shortest solution; null if unsolvable
     public Iterable<Board> solution() {
         return solutionPath;
     }
 
-    // test client (see below)
+    // test client (see below), optionally followed by a strategy name such as IDA_STAR
     public static void main(String[] args) {
 
         // create initial board from file
@@ -137,7 +430,8 @@ public class Solver {
         Board initial = new Board(tiles);
 
         // solve the puzzle
-        Solver solver = new Solver(initial);
+        Strategy strategy = args.length > 1 ? Strategy.valueOf(args[1]) : Strategy.A_STAR;
+        Solver solver = new Solver(initial, strategy);
 
         // print solution to standard output
         if (!solver.isSolvable())
@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import edu.princeton.cs.algs4.In;
+
+/*
+ * Timing client for Solver. Solves the given puzzle files, or without arguments
+ * a fixed set of boards scrambled by random walks from the goal, and prints one
+ * CSV row per puzzle to standard output.
+ *
+ * Execution: java SolverBenchmark [puzzle files]
+ */
+public class SolverBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+    private static final long SEED = 20200101L;
+
+    public static void main(String[] args) {
+        System.out.println("benchmark,puzzle,moves,best_ns_per_solve,mean_ns_per_solve");
+
+        if (args.length > 0) {
+            for (String file : args) {
+                measure(file, readBoard(file));
+            }
+            return;
+        }
+
+        Random random = new Random(SEED);
+        for (int n = 3; n <= 4; n++) {
+            for (int walk : new int[] { 20, 40, 60 }) {
+                measure(n + "x" + n + "-walk" + walk, scramble(n, walk, random));
+            }
+        }
+    }
+
+    private static Board readBoard(String file) {
+        In in = new In(file);
+        int n = in.readInt();
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                tiles[i][j] = in.readInt();
+        return new Board(tiles);
+    }
+
+    // the goal board after the given number of random moves, never undoing the last one
+    private static Board scramble(int n, int walk, Random random) {
+        int[][] tiles = new int[n][n];
+        for (int i = 0; i < n * n - 1; i++) {
+            tiles[i / n][i % n] = i + 1;
+        }
+
+        Board board = new Board(tiles);
+        Board previous = null;
+        for (int i = 0; i < walk; i++) {
+            List<Board> neighbors = new ArrayList<Board>();
+            for (Board neighbor : board.neighbors()) {
+                if (!neighbor.equals(previous)) {
+                    neighbors.add(neighbor);
+                }
+            }
+            previous = board;
+            board = neighbors.get(random.nextInt(neighbors.size()));
+        }
+        return board;
+    }
+
+    private static void measure(String puzzle, Board board) {
+        int moves = new Solver(board).moves();
+        Benchmark.Timing timing = Benchmark.time(WARMUP_ROUNDS, ROUNDS, () -> {
+            Benchmark.consume(new Solver(board).moves());
+            return 1;
+        });
+
+        System.out.printf("Solver,%s,%d,%.0f,%.0f%n", puzzle, moves, timing.bestNanosPerOp, timing.meanNanosPerOp);
+    }
+}
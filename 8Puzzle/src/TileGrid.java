@@ -0,0 +1,15 @@
+/*
+ * Read access to a puzzle position, implemented by both Board and MutableBoard
+ * so that heuristics work with every search engine.
+ */
+public interface TileGrid {
+
+    // board dimension n
+    int dimension();
+
+    // tile at the given row-major index, 0 for the blank
+    int tileAt(int index);
+
+    // sum of Manhattan distances between tiles and goal
+    int manhattan();
+}
@@ -0,0 +1,65 @@
+import java.util.function.LongSupplier;
+
+/*
+ * Timing loop shared by the benchmark clients of the assignments. A case is run
+ * a few times untimed so the JIT settles, then timed for a number of rounds;
+ * the clients print the resulting best and mean time per operation in their
+ * own CSV layout. JMH would do this better but refuses benchmarks in the
+ * default package, which the assignments have to use.
+ */
+public final class Benchmark {
+
+    // keeps the results alive so the measured work cannot be optimised away
+    private static long sink;
+
+    private Benchmark() {
+    }
+
+    // folds a result of a case into the sink
+    public static void consume(long value) {
+        sink += value;
+    }
+
+    /*
+     * runs the case warmupRounds times and then rounds times while timing it. The
+     * case returns the number of operations it did, which also goes to the sink.
+     */
+    public static Timing time(int warmupRounds, int rounds, LongSupplier run) {
+        if (warmupRounds < 0 || rounds <= 0) {
+            throw new IllegalArgumentException("Need at least one timed round");
+        }
+
+        for (int i = 0; i < warmupRounds; i++) {
+            consume(run.getAsLong());
+        }
+
+        long ops = 0;
+        long totalNanos = 0;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            long roundOps = run.getAsLong();
+            long nanos = System.nanoTime() - start;
+
+            consume(roundOps);
+            ops += roundOps;
+            totalNanos += nanos;
+            best = Math.min(best, (double) nanos / roundOps);
+        }
+
+        return new Timing(ops, best, (double) totalNanos / ops);
+    }
+
+    // operations done by the timed rounds and the time they took
+    public static final class Timing {
+        public final long ops;
+        public final double bestNanosPerOp;
+        public final double meanNanosPerOp;
+
+        private Timing(long ops, double bestNanosPerOp, double meanNanosPerOp) {
+            this.ops = ops;
+            this.bestNanosPerOp = bestNanosPerOp;
+            this.meanNanosPerOp = meanNanosPerOp;
+        }
+    }
+}
@@ -1,10 +1,11 @@
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class BruteCollinearPoints {
 
   private final Point[] points;
-  private LineSegment[] lineSegments;
-  private int numberOfSegments;
+  private final List<LineSegment> lineSegments = new ArrayList<>();
 
   // finds all line segments containing 4 points
   public BruteCollinearPoints(Point[] points) {
@@ -14,8 +15,11 @@ public class BruteCollinearPoints {
     }
 
     this.points = Arrays.copyOf(points, points.length);
+    Arrays.sort(this.points);
 
-    this.lineSegments = new LineSegment[points.length];
+    if (hasRepeatedPoint(this.points)) {
+      throw new IllegalArgumentException("Invalid input");
+    }
 
     calculateLineSegments();
   }
@@ -31,30 +35,29 @@ public class BruteCollinearPoints {
       }
     }
 
-    // checks if there is a repeated point
-    for (int i = 0; i < p.length - 1; i++) {
-      for (int j = i + 1; j < p.length; j++) {
-        if (p[i].compareTo(p[j]) == 0) {
-          return false;
-        }
+    return true;
+  }
+
+  // repeated points are adjacent in a sorted array
+  private static boolean hasRepeatedPoint(Point[] sorted) {
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i - 1].compareTo(sorted[i]) == 0) {
+        return true;
       }
     }
-
-    return true;
+    return false;
   }
 
   private void calculateLineSegments() {
 
-    Arrays.sort(this.points);
-
     for (int p = 0; p < points.length - 3; p++) {
       for (int q = p + 1; q < points.length - 2; q++) {
         for (int r = q + 1; r < points.length - 1; r++) {
           for (int s = r + 1; s < points.length; s++) {
 
-            if (this.points[p].slopeTo(this.points[q]) == this.points[q].slopeTo(this.points[r])
-                && this.points[q].slopeTo(this.points[r]) == this.points[r].slopeTo(this.points[s])) {
-              this.lineSegments[numberOfSegments++] = new LineSegment(points[p], points[s]);
+            if (this.points[p].slopeCompare(this.points[q], this.points[r]) == 0
+                && this.points[p].slopeCompare(this.points[q], this.points[s]) == 0) {
+              this.lineSegments.add(new LineSegment(points[p], points[s]));
             }
           }
         }
@@ -65,11 +68,11 @@ public class BruteCollinearPoints {
 
   // the number of line segments
   public int numberOfSegments() {
-    return this.numberOfSegments;
+    return this.lineSegments.size();
   }
 
   // the line segments
   public LineSegment[] segments() {
-    return Arrays.copyOf(this.lineSegments, numberOfSegments);
+    return this.lineSegments.toArray(new LineSegment[0]);
   }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/*
+ * Timing client for the collinear point finders at increasing numbers of
+ * points. Half of the points lie on random 4-point lines, the rest are
+ * scattered. One CSV row per case goes to standard output.
+ *
+ * Execution: java CollinearBenchmark
+ */
+public class CollinearBenchmark {
+  private static final int WARMUP_ROUNDS = 2;
+  private static final int ROUNDS = 5;
+  private static final int MAX_COORDINATE = 32768;
+  private static final int MAX_BRUTE_POINTS = 200;
+  private static final long SEED = 20200101L;
+  private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+  public static void main(String[] args) {
+    System.out.println("benchmark,points,segments,best_ns,mean_ns");
+
+    Random random = new Random(SEED);
+    for (int n = 100; n <= 3200; n *= 2) {
+      Point[] points = randomPoints(n, random);
+
+      if (n <= MAX_BRUTE_POINTS) {
+        measure("BruteCollinearPoints", points, () -> new BruteCollinearPoints(points).numberOfSegments());
+      }
+      measure("FastCollinearPoints", points, () -> new FastCollinearPoints(points).numberOfSegments());
+      measure("FastCollinearPoints-parallel", points,
+          () -> new FastCollinearPoints(points, THREADS).numberOfSegments());
+      measure("HashCollinearPoints", points, () -> new HashCollinearPoints(points).numberOfSegments());
+    }
+  }
+
+  // n distinct points, half of them in groups of 4 on random lines
+  private static Point[] randomPoints(int n, Random random) {
+    Set<Long> used = new HashSet<>();
+    Point[] points = new Point[n];
+    int count = 0;
+
+    while (count + 4 <= n / 2) {
+      int dx = random.nextInt(201) - 100;
+      int dy = random.nextInt(101) + 1;
+      int x = random.nextInt(MAX_COORDINATE - 400) + 200;
+      int y = random.nextInt(MAX_COORDINATE - 400);
+
+      boolean free = true;
+      for (int i = 0; i < 4; i++) {
+        free &= !used.contains(key(x + i * dx, y + i * dy));
+      }
+      if (free) {
+        for (int i = 0; i < 4; i++) {
+          used.add(key(x + i * dx, y + i * dy));
+          points[count++] = new Point(x + i * dx, y + i * dy);
+        }
+      }
+    }
+
+    while (count < n) {
+      int x = random.nextInt(MAX_COORDINATE);
+      int y = random.nextInt(MAX_COORDINATE);
+      if (used.add(key(x, y))) {
+        points[count++] = new Point(x, y);
+      }
+    }
+
+    return points;
+  }
+
+  private static long key(int x, int y) {
+    return (long) x << 32 | y;
+  }
+
+  private static void measure(String benchmark, Point[] points, LongSupplier run) {
+    long segments = run.getAsLong();
+    Benchmark.Timing timing = Benchmark.time(WARMUP_ROUNDS, ROUNDS, () -> {
+      Benchmark.consume(run.getAsLong());
+      return 1;
+    });
+
+    System.out.printf("%s,%d,%d,%.0f,%.0f%n", benchmark, points.length, segments, timing.bestNanosPerOp,
+        timing.meanNanosPerOp);
+  }
+}
@@ -1,25 +1,51 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class FastCollinearPoints {
 
   private final Point[] points;
-  private LineSegment[] lineSegments;
-  private int numberOfSegments;
+  // position of each point in natural order, so the anchor tests compare ints
+  private final int[] rank;
+  // whether all coordinate differences are below 2^31, so slope products fit in a long
+  private final boolean narrow;
+  private final List<LineSegment> lineSegments = new ArrayList<>();
 
   // finds all line segments containing 4 or more points
   public FastCollinearPoints(Point[] points) {
+    this(points, 1);
+  }
+
+  /*
+   * finds all line segments containing 4 or more points, splitting the anchor
+   * points among the given number of threads. The segments come out in the same
+   * order as in the sequential run.
+   */
+  public FastCollinearPoints(Point[] points, int threads) {
 
-    if (!isInputValid(points)) {
+    if (!isInputValid(points) || threads <= 0) {
       throw new IllegalArgumentException("Invalid input");
     }
 
     this.points = Arrays.copyOf(points, points.length);
 
-    lineSegments = new LineSegment[points.length * points.length];
+    Point[] sorted = Arrays.copyOf(points, points.length);
+    Arrays.sort(sorted);
+    if (hasRepeatedPoint(sorted)) {
+      throw new IllegalArgumentException("Invalid input");
+    }
+
+    this.rank = ranks(this.points, sorted);
+    this.narrow = isNarrow(this.points);
 
-    calculateLineSegments();
+    if (threads == 1 || points.length < 2) {
+      calculateLineSegments(0, points.length, lineSegments);
+    } else {
+      calculateLineSegmentsInParallel(threads);
+    }
 
   }
 
@@ -34,73 +60,268 @@ public class FastCollinearPoints {
       }
     }
 
-    // checks if there is a repeated point
-    for (int i = 0; i < p.length - 1; i++) {
-      for (int j = i + 1; j < p.length; j++) {
-        if (p[i].compareTo(p[j]) == 0) {
-          return false;
-        }
+    return true;
+  }
+
+  // repeated points are adjacent in a sorted array
+  private static boolean hasRepeatedPoint(Point[] sorted) {
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i - 1].compareTo(sorted[i]) == 0) {
+        return true;
       }
     }
-
-    return true;
+    return false;
   }
 
-  private void calculateLineSegments() {
+  private static int[] ranks(Point[] points, Point[] sorted) {
+    int[] rank = new int[points.length];
+    for (int i = 0; i < points.length; i++) {
+      rank[i] = Arrays.binarySearch(sorted, points[i]);
+    }
+    return rank;
+  }
 
-    Point[] pointsBySlope = Arrays.copyOf(this.points, this.points.length);
+  private static boolean isNarrow(Point[] points) {
+    long minX = Integer.MAX_VALUE;
+    long maxX = Integer.MIN_VALUE;
+    long minY = Integer.MAX_VALUE;
+    long maxY = Integer.MIN_VALUE;
+    for (Point point : points) {
+      minX = Math.min(minX, point.x());
+      maxX = Math.max(maxX, point.x());
+      minY = Math.min(minY, point.y());
+      maxY = Math.max(maxY, point.y());
+    }
+    return maxX - minX < 1L << 31 && maxY - minY < 1L << 31;
+  }
 
-    for (int i = 0; i < points.length; i++) {
-      Arrays.sort(pointsBySlope, points[i].slopeOrder());
+  /*
+   * thread t takes a contiguous range of anchors with its own slope arrays and
+   * collects its segments in its own list, the lists are then appended in
+   * anchor order.
+   */
+  private void calculateLineSegmentsInParallel(int threads) {
+    threads = Math.min(threads, points.length);
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    List<Future<List<LineSegment>>> results = new ArrayList<>();
 
-      List<Point> currentLineSegments = new ArrayList<>();
-      currentLineSegments.add(points[i]);
-      double previousSlope = Double.NEGATIVE_INFINITY;
+    try {
+      for (int t = 0; t < threads; t++) {
+        int from = (int) ((long) points.length * t / threads);
+        int to = (int) ((long) points.length * (t + 1) / threads);
+        results.add(pool.submit(() -> {
+          List<LineSegment> found = new ArrayList<>();
+          calculateLineSegments(from, to, found);
+          return found;
+        }));
+      }
 
-      for (int j = 1; j < pointsBySlope.length; j++) {
+      for (Future<List<LineSegment>> result : results) {
+        lineSegments.addAll(result.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while finding segments", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Finding segments failed", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
 
-        double currentSlope = points[i].slopeTo(pointsBySlope[j]);
+  // adds the segments whose smallest point is one of the anchors from .. to - 1
+  private void calculateLineSegments(int from, int to, List<LineSegment> found) {
 
-        if (currentSlope == previousSlope) {
-          currentLineSegments.add(pointsBySlope[j - 1]);
-        } else {
+    SlopeSorter sorter = new SlopeSorter(points.length, narrow);
 
-          if (currentLineSegments.size() >= 3) {
-            currentLineSegments.add(pointsBySlope[j - 1]);
-            addLineSegment(currentLineSegments, points[i]);
-          }
+    for (int i = from; i < to; i++) {
+      sorter.sortAround(points, i);
 
-          currentLineSegments.subList(1, currentLineSegments.size()).clear();
+      // runs of equal slope are the other points of a line through the anchor
+      int start = 0;
+      for (int j = 1; j <= sorter.size(); j++) {
+        if (j < sorter.size() && sorter.compare(j - 1, j) == 0) {
+          continue;
         }
 
-        previousSlope = currentSlope;
-      }
-
-      if (currentLineSegments.size() >= 3) {
-        currentLineSegments.add(pointsBySlope[pointsBySlope.length - 1]);
-        addLineSegment(currentLineSegments, points[i]);
+        if (j - start >= 3) {
+          addLineSegment(sorter, start, j, i, found);
+        }
+        start = j;
       }
     }
-
   }
 
-  private void addLineSegment(List<Point> currentLineSegments, Point startingPoint) {
-    Point minPointBySlope = currentLineSegments.stream().min(Point::compareTo).get();
-
-    Point maxPointBySlope = currentLineSegments.stream().max(Point::compareTo).get();
-
-    if (startingPoint.compareTo(minPointBySlope) == 0) {
-      this.lineSegments[numberOfSegments++] = new LineSegment(minPointBySlope, maxPointBySlope);
+  /*
+   * adds the segment from the anchor over the points at positions start .. end - 1
+   * of the slope order, but only if the anchor is the smallest of them, so each
+   * line is added once
+   */
+  private void addLineSegment(SlopeSorter sorter, int start, int end, int anchor, List<LineSegment> found) {
+    int max = anchor;
+    for (int k = start; k < end; k++) {
+      int point = sorter.index(k);
+      if (rank[point] < rank[anchor]) {
+        return;
+      }
+      if (rank[point] > rank[max]) {
+        max = point;
+      }
     }
+
+    found.add(new LineSegment(points[anchor], points[max]));
   }
 
   // the number of line segments
   public int numberOfSegments() {
-    return numberOfSegments;
+    return lineSegments.size();
   }
 
   // the line segments
   public LineSegment[] segments() {
-    return Arrays.copyOf(lineSegments, numberOfSegments, LineSegment[].class);
+    return lineSegments.toArray(new LineSegment[0]);
+  }
+
+  /*
+   * per-thread scratch for the slopes from one anchor to all other points. Each
+   * point gets one long key, its slope as a double in an order-preserving bit
+   * pattern with the low bits replaced by the point's index, and the keys are
+   * sorted as plain longs. Rounding never reorders slopes, it can only make
+   * different ones tie, and equal slopes always get equal keys. So sorting each
+   * run of tied keys exactly, by cross-multiplying the (dy, dx) pairs, gives the
+   * exact slope order with no Comparator and no slope computed twice.
+   */
+  private static class SlopeSorter {
+    private static final int INSERTION_SORT_CUTOFF = 12;
+
+    private final long[] keys;
+    // slope of point j to the anchor as dy[j] / dx[j] with dx[j] >= 0, vertical being 1 / 0
+    private final long[] dy;
+    private final long[] dx;
+    private final long indexMask;
+    private final boolean narrow;
+    private int size;
+
+    SlopeSorter(int n, boolean narrow) {
+      this.keys = new long[Math.max(n - 1, 0)];
+      this.dy = new long[n];
+      this.dx = new long[n];
+      this.indexMask = -1L >>> Long.numberOfLeadingZeros(Math.max(n - 1, 1));
+      this.narrow = narrow;
+    }
+
+    // fills the keys with the slopes from points[anchor] to every other point and sorts them
+    void sortAround(Point[] points, int anchor) {
+      long x = points[anchor].x();
+      long y = points[anchor].y();
+
+      size = 0;
+      for (int j = 0; j < points.length; j++) {
+        if (j == anchor) {
+          continue;
+        }
+
+        long dyJ = points[j].y() - y;
+        long dxJ = points[j].x() - x;
+        if (dxJ < 0) {
+          dyJ = -dyJ;
+          dxJ = -dxJ;
+        } else if (dxJ == 0) {
+          dyJ = 1;
+        }
+        dy[j] = dyJ;
+        dx[j] = dxJ;
+
+        double slope = dxJ == 0 ? Double.POSITIVE_INFINITY : (double) dyJ / dxJ;
+        long bits = Double.doubleToRawLongBits(slope);
+        bits ^= (bits >> 63) & Long.MAX_VALUE;
+        keys[size++] = bits & ~indexMask | j;
+      }
+
+      Arrays.sort(keys, 0, size);
+
+      int start = 0;
+      for (int k = 1; k <= size; k++) {
+        if (k < size && (keys[k] & ~indexMask) == (keys[k - 1] & ~indexMask)) {
+          continue;
+        }
+        if (k - start > 1) {
+          sort(start, k - 1);
+        }
+        start = k;
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    // index of the point at the given position of the slope order
+    int index(int position) {
+      return (int) (keys[position] & indexMask);
+    }
+
+    // compares the slopes at positions a and b exactly
+    int compare(int a, int b) {
+      return compareSlopes(index(a), index(b));
+    }
+
+    private int compareSlopes(int i, int j) {
+      if (narrow) {
+        return Long.compare(dy[i] * dx[j], dy[j] * dx[i]);
+      }
+      return Point.compareProducts(dy[i], dx[j], dy[j], dx[i]);
+    }
+
+    // exact 3-way quicksort of keys[lo .. hi], the runs it gets are mostly tiny
+    private void sort(int lo, int hi) {
+      while (hi - lo > INSERTION_SORT_CUTOFF) {
+        swap(lo, medianOfThree(lo, lo + (hi - lo) / 2, hi));
+        int pivot = index(lo);
+
+        // keys[lo .. lt - 1] < pivot = keys[lt .. i - 1] < keys[gt + 1 .. hi]
+        int lt = lo;
+        int gt = hi;
+        int i = lo + 1;
+        while (i <= gt) {
+          int cmp = compareSlopes(index(i), pivot);
+          if (cmp < 0) {
+            swap(lt++, i++);
+          } else if (cmp > 0) {
+            swap(i, gt--);
+          } else {
+            i++;
+          }
+        }
+
+        // recursing into the smaller side bounds the stack depth by log n
+        if (lt - lo < hi - gt) {
+          sort(lo, lt - 1);
+          lo = gt + 1;
+        } else {
+          sort(gt + 1, hi);
+          hi = lt - 1;
+        }
+      }
+
+      for (int i = lo + 1; i <= hi; i++) {
+        for (int j = i; j > lo && compare(j, j - 1) < 0; j--) {
+          swap(j, j - 1);
+        }
+      }
+    }
+
+    private int medianOfThree(int a, int b, int c) {
+      if (compare(a, b) < 0) {
+        return compare(b, c) < 0 ? b : compare(a, c) < 0 ? c : a;
+      }
+      return compare(a, c) < 0 ? a : compare(b, c) < 0 ? c : b;
+    }
+
+    private void swap(int a, int b) {
+      long key = keys[a];
+      keys[a] = keys[b];
+      keys[b] = key;
+    }
   }
 }
@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Finds the same segments as FastCollinearPoints in O(n^2) expected time. For
+ * every anchor the other points are counted by their slope to it in an
+ * open-addressing table of primitive arrays, so no sorting happens per anchor.
+ * Slopes are hashed through their double value, which is equal for equal
+ * slopes, and matched exactly by cross-multiplying the (dy, dx) pairs. A line
+ * through the anchor is reported only from its smallest point, which also
+ * stands in for a segment key: no smaller point on the line means this anchor
+ * and slope are the one place the line is found, and LineSegment is never
+ * hashed or compared.
+ */
+public class HashCollinearPoints {
+
+  private final Point[] points;
+  // position of each point in natural order
+  private final int[] rank;
+  private final List<LineSegment> lineSegments = new ArrayList<>();
+
+  // finds all line segments containing 4 or more points
+  public HashCollinearPoints(Point[] points) {
+
+    if (points == null) {
+      throw new IllegalArgumentException("Invalid input");
+    }
+    for (Point point : points) {
+      if (point == null) {
+        throw new IllegalArgumentException("Invalid input");
+      }
+    }
+
+    this.points = Arrays.copyOf(points, points.length);
+    this.rank = ranks(this.points);
+
+    calculateLineSegments();
+  }
+
+  // natural-order positions, repeated points are adjacent once sorted
+  private static int[] ranks(Point[] points) {
+    Point[] sorted = Arrays.copyOf(points, points.length);
+    Arrays.sort(sorted);
+
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i - 1].compareTo(sorted[i]) == 0) {
+        throw new IllegalArgumentException("Invalid input");
+      }
+    }
+
+    int[] rank = new int[points.length];
+    for (int i = 0; i < points.length; i++) {
+      rank[i] = Arrays.binarySearch(sorted, points[i]);
+    }
+    return rank;
+  }
+
+  private void calculateLineSegments() {
+
+    SlopeTable table = new SlopeTable(points.length);
+
+    for (int i = 0; i < points.length; i++) {
+      table.clear();
+
+      long x = points[i].x();
+      long y = points[i].y();
+      for (int j = 0; j < points.length; j++) {
+        if (j != i) {
+          table.add(points[j].y() - y, points[j].x() - x, j, rank[j]);
+        }
+      }
+
+      // lines are taken in the order their slopes were first seen
+      for (int k = 0; k < table.size(); k++) {
+        int slot = table.slotAt(k);
+        if (table.count(slot) >= 3 && table.minRank(slot) > rank[i]) {
+          lineSegments.add(new LineSegment(points[i], points[table.maxPoint(slot)]));
+        }
+      }
+    }
+  }
+
+  // the number of line segments
+  public int numberOfSegments() {
+    return lineSegments.size();
+  }
+
+  // the line segments
+  public LineSegment[] segments() {
+    return lineSegments.toArray(new LineSegment[0]);
+  }
+
+  /*
+   * open-addressing table from slopes to the number of points with that slope,
+   * the smallest rank among them and the point of largest rank. Slots are
+   * stamped with a generation instead of being wiped, so clear() is O(1), and
+   * the used slots are listed in insertion order so a pass over them is O(n).
+   */
+  private static class SlopeTable {
+    private final long[] slopeBits;
+    private final long[] dy;
+    private final long[] dx;
+    private final int[] count;
+    private final int[] minRank;
+    private final int[] maxRank;
+    private final int[] maxPoint;
+    private final int[] generation;
+    private final int[] used;
+    private final int mask;
+    private int currentGeneration;
+    private int size;
+
+    SlopeTable(int n) {
+      // at most n - 1 slopes per anchor, so the load factor stays below one half
+      int capacity = Integer.highestOneBit(Math.max(2 * n - 1, 1)) << 1;
+      this.slopeBits = new long[capacity];
+      this.dy = new long[capacity];
+      this.dx = new long[capacity];
+      this.count = new int[capacity];
+      this.minRank = new int[capacity];
+      this.maxRank = new int[capacity];
+      this.maxPoint = new int[capacity];
+      this.generation = new int[capacity];
+      this.used = new int[Math.max(n - 1, 0)];
+      this.mask = capacity - 1;
+    }
+
+    void clear() {
+      currentGeneration++;
+      size = 0;
+    }
+
+    // counts point j, of the given rank, whose offset from the anchor is (dy, dx)
+    void add(long slopeDy, long slopeDx, int j, int rankJ) {
+
+      // dx >= 0 and vertical as (1, 0), so equal slopes give the same double
+      if (slopeDx < 0) {
+        slopeDy = -slopeDy;
+        slopeDx = -slopeDx;
+      } else if (slopeDx == 0) {
+        slopeDy = 1;
+      }
+      double slope = slopeDx == 0 ? Double.POSITIVE_INFINITY : (double) slopeDy / slopeDx;
+      long bits = Double.doubleToRawLongBits(slope);
+
+      int slot = hash(bits) & mask;
+      while (generation[slot] == currentGeneration && !isSameSlope(slot, bits, slopeDy, slopeDx)) {
+        slot = (slot + 1) & mask;
+      }
+
+      if (generation[slot] != currentGeneration) {
+        generation[slot] = currentGeneration;
+        slopeBits[slot] = bits;
+        dy[slot] = slopeDy;
+        dx[slot] = slopeDx;
+        count[slot] = 1;
+        minRank[slot] = rankJ;
+        maxRank[slot] = rankJ;
+        maxPoint[slot] = j;
+        used[size++] = slot;
+        return;
+      }
+
+      count[slot]++;
+      minRank[slot] = Math.min(minRank[slot], rankJ);
+      if (rankJ > maxRank[slot]) {
+        maxRank[slot] = rankJ;
+        maxPoint[slot] = j;
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    int slotAt(int k) {
+      return used[k];
+    }
+
+    int count(int slot) {
+      return count[slot];
+    }
+
+    int minRank(int slot) {
+      return minRank[slot];
+    }
+
+    int maxPoint(int slot) {
+      return maxPoint[slot];
+    }
+
+    // different doubles rule a slope out cheaply, equal ones are confirmed exactly
+    private boolean isSameSlope(int slot, long bits, long slopeDy, long slopeDx) {
+      return slopeBits[slot] == bits && Point.compareProducts(dy[slot], slopeDx, slopeDy, dx[slot]) == 0;
+    }
+
+    // murmur3's finalizer
+    private static int hash(long bits) {
+      long h = bits;
+      h ^= h >>> 33;
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 33;
+      return (int) h;
+    }
+  }
+}
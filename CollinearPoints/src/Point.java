@@ -30,6 +30,15 @@ public class Point implements Comparable<Point> {
     this.y = y;
   }
 
+  // coordinates, for the collinear finders' primitive slope arrays
+  int x() {
+    return x;
+  }
+
+  int y() {
+    return y;
+  }
+
   /**
    * Draws this point to standard draw.
    */
@@ -108,7 +117,7 @@ public class Point implements Comparable<Point> {
   public Comparator<Point> slopeOrder() {
 
     // Java 8
-    return (o1, o2) -> Double.compare(slopeTo(o1), slopeTo(o2));
+    return this::slopeCompare;
     /*
      * Before Java 8 - anonymous class return new Comparator<Point>() {
      * 
@@ -119,6 +128,61 @@ public class Point implements Comparable<Point> {
      */
   }
 
+  /*
+   * Compares the slopes this point makes with p and with q exactly, in the order
+   * of slopeTo() but without floating point: the differences are kept as longs
+   * and the fractions are compared by cross-multiplying into 128 bits, so slopes
+   * that differ only past the precision of a double are still told apart.
+   */
+  int slopeCompare(Point p, Point q) {
+    long dyP = (long) p.y - y;
+    long dxP = (long) p.x - x;
+    long dyQ = (long) q.y - y;
+    long dxQ = (long) q.x - x;
+
+    int kindP = slopeKind(dyP, dxP);
+    int kindQ = slopeKind(dyQ, dxQ);
+    if (kindP != FINITE || kindQ != FINITE) {
+      return Integer.compare(kindP, kindQ);
+    }
+
+    // with positive denominators dyP / dxP < dyQ / dxQ iff dyP * dxQ < dyQ * dxP
+    if (dxP < 0) {
+      dyP = -dyP;
+      dxP = -dxP;
+    }
+    if (dxQ < 0) {
+      dyQ = -dyQ;
+      dxQ = -dxQ;
+    }
+    return compareProducts(dyP, dxQ, dyQ, dxP);
+  }
+
+  // slopeTo() classes in increasing order: this point itself, finite, vertical
+  private static final int DEGENERATE = 0;
+  private static final int FINITE = 1;
+  private static final int VERTICAL = 2;
+
+  private static int slopeKind(long dy, long dx) {
+    if (dx != 0) {
+      return FINITE;
+    }
+    return dy == 0 ? DEGENERATE : VERTICAL;
+  }
+
+  /*
+   * Compares a * b with c * d. The factors are below 2^32 in magnitude, so the
+   * products can overflow a long and are compared as 128-bit values.
+   */
+  static int compareProducts(long a, long b, long c, long d) {
+    long high1 = Math.multiplyHigh(a, b);
+    long high2 = Math.multiplyHigh(c, d);
+    if (high1 != high2) {
+      return Long.compare(high1, high2);
+    }
+    return Long.compareUnsigned(a * b, c * d);
+  }
+
   /**
    * Returns a string representation of this point. This method is provide for
    * debugging; your program should not rely on the format of the string
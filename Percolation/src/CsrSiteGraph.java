@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+/*
+ * Sparse undirected site graph in compressed sparse row form: the neighbours of
+ * site i are targets[offsets[i]] .. targets[offsets[i + 1] - 1]. Every edge must
+ * be listed in both rows, since SitePercolation only joins an opened site with
+ * the neighbours in its own row; a one-sided edge is rejected. The arrays are
+ * used as given, not copied, and each row of targets is sorted in place.
+ */
+public class CsrSiteGraph implements SiteGraph {
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final long[] sources;
+	private final long[] sinks;
+	private final int maxDegree;
+
+	public CsrSiteGraph(int[] offsets, int[] targets, int[] sources, int[] sinks) {
+
+		if (offsets == null || targets == null || sources == null || sinks == null || offsets.length == 0) {
+			throw new IllegalArgumentException("Invalid graph");
+		}
+
+		int sites = offsets.length - 1;
+		int maxDegree = 0;
+		for (int site = 0; site < sites; site++) {
+			if (offsets[site] > offsets[site + 1]) {
+				throw new IllegalArgumentException("Offsets must not decrease");
+			}
+			maxDegree = Math.max(maxDegree, offsets[site + 1] - offsets[site]);
+		}
+		if (offsets[0] != 0 || offsets[sites] != targets.length) {
+			throw new IllegalArgumentException("Offsets do not match the targets");
+		}
+		for (int target : targets) {
+			checkSite(target, sites);
+		}
+		checkSymmetric(offsets, targets, sites);
+
+		this.offsets = offsets;
+		this.targets = targets;
+		this.maxDegree = maxDegree;
+		this.sources = toBits(sources, sites);
+		this.sinks = toBits(sinks, sites);
+	}
+
+	// sorts every row, then looks up the reverse of each edge in the row of its target
+	private static void checkSymmetric(int[] offsets, int[] targets, int sites) {
+		for (int site = 0; site < sites; site++) {
+			Arrays.sort(targets, offsets[site], offsets[site + 1]);
+		}
+
+		for (int site = 0; site < sites; site++) {
+			for (int i = offsets[site]; i < offsets[site + 1]; i++) {
+				int target = targets[i];
+				if (Arrays.binarySearch(targets, offsets[target], offsets[target + 1], site) < 0) {
+					throw new IllegalArgumentException(
+							"Edge " + site + " - " + target + " is missing from the row of " + target);
+				}
+			}
+		}
+	}
+
+	private static long[] toBits(int[] sites, int size) {
+		long[] bits = new long[(size + Long.SIZE - 1) / Long.SIZE];
+		for (int site : sites) {
+			checkSite(site, size);
+			bits[site >>> 6] |= 1L << site;
+		}
+		return bits;
+	}
+
+	private static void checkSite(int site, int size) {
+		if (site < 0 || site >= size) {
+			throw new IllegalArgumentException("There is a site outside of range");
+		}
+	}
+
+	@Override
+	public int sites() {
+		return offsets.length - 1;
+	}
+
+	@Override
+	public int maxDegree() {
+		return maxDegree;
+	}
+
+	@Override
+	public int neighbours(int site, int[] buffer) {
+		int count = offsets[site + 1] - offsets[site];
+		System.arraycopy(targets, offsets[site], buffer, 0, count);
+		return count;
+	}
+
+	@Override
+	public boolean isSource(int site) {
+		return (sources[site >>> 6] & (1L << site)) != 0;
+	}
+
+	@Override
+	public boolean isSink(int site) {
+		return (sinks[site >>> 6] & (1L << site)) != 0;
+	}
+}
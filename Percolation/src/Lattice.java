@@ -0,0 +1,115 @@
+/*
+ * Regular lattices as site graphs. Neighbours are computed from the site index,
+ * so no adjacency is stored. The first layer (row 0 in 2D, z = 0 in 3D) holds
+ * the sources and the last layer the sinks.
+ */
+public class Lattice implements SiteGraph {
+
+	private final int length;
+	private final int dimensions;
+	private final boolean diagonals;
+	private final int layerSize;
+	private final int sites;
+
+	private Lattice(int length, int dimensions, boolean diagonals) {
+
+		if (length <= 0) {
+			throw new IllegalArgumentException("N must be positive");
+		}
+
+		long layerSize = dimensions == 3 ? (long) length * length : length;
+		long sites = layerSize * length;
+		if (sites > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The lattice has too many sites");
+		}
+
+		this.length = length;
+		this.dimensions = dimensions;
+		this.diagonals = diagonals;
+		this.layerSize = (int) layerSize;
+		this.sites = (int) sites;
+	}
+
+	// n-by-n grid where each site connects to its 4 edge neighbours
+	public static Lattice square(int n) {
+		return new Lattice(n, 2, false);
+	}
+
+	// n-by-n grid where each site also connects to its 4 diagonal neighbours
+	public static Lattice squareWithDiagonals(int n) {
+		return new Lattice(n, 2, true);
+	}
+
+	// n-by-n-by-n cube where each site connects to its 6 face neighbours
+	public static Lattice cubic(int n) {
+		return new Lattice(n, 3, false);
+	}
+
+	@Override
+	public int sites() {
+		return sites;
+	}
+
+	@Override
+	public int maxDegree() {
+		if (dimensions == 3) {
+			return 6;
+		}
+		return diagonals ? 8 : 4;
+	}
+
+	@Override
+	public int neighbours(int site, int[] buffer) {
+		int count = 0;
+		int x = site % length;
+		int y = site / length % length;
+
+		if (x > 0) {
+			buffer[count++] = site - 1;
+		}
+		if (x < length - 1) {
+			buffer[count++] = site + 1;
+		}
+		if (y > 0) {
+			buffer[count++] = site - length;
+		}
+		if (y < length - 1) {
+			buffer[count++] = site + length;
+		}
+
+		if (dimensions == 3) {
+			int z = site / layerSize;
+			if (z > 0) {
+				buffer[count++] = site - layerSize;
+			}
+			if (z < length - 1) {
+				buffer[count++] = site + layerSize;
+			}
+		} else if (diagonals) {
+			if (y > 0 && x > 0) {
+				buffer[count++] = site - length - 1;
+			}
+			if (y > 0 && x < length - 1) {
+				buffer[count++] = site - length + 1;
+			}
+			if (y < length - 1 && x > 0) {
+				buffer[count++] = site + length - 1;
+			}
+			if (y < length - 1 && x < length - 1) {
+				buffer[count++] = site + length + 1;
+			}
+		}
+
+		return count;
+	}
+
+	@Override
+	public boolean isSource(int site) {
+		return site < layerSize;
+	}
+
+	@Override
+	public boolean isSink(int site) {
+		return site >= sites - layerSize;
+	}
+}
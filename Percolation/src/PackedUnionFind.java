@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+/*
+ * Weighted union-find over a single int[]. A non-negative entry is the parent
+ * of the site. A root stores the complement of (rank << FLAG_BITS | flags), so
+ * root entries are always negative and carry the component's TOP/BOTTOM bits,
+ * set when it reaches the top (source) or bottom (sink) side of the system.
+ */
+class PackedUnionFind {
+	static final int TOP = 1;
+	static final int BOTTOM = 2;
+
+	private static final int FLAG_BITS = 2;
+	private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+	// complement of rank 0 with no flags
+	private static final int SINGLETON = ~0;
+
+	private final int[] parent;
+
+	PackedUnionFind(int n) {
+		this.parent = new int[n];
+		Arrays.fill(parent, SINGLETON);
+	}
+
+	// every site becomes its own component again, without flags
+	void reset() {
+		Arrays.fill(parent, SINGLETON);
+	}
+
+	// root of the component containing p, halving the path on the way up
+	int find(int p) {
+		int q;
+		while ((q = parent[p]) >= 0) {
+			int grandParent = parent[q];
+			if (grandParent < 0) {
+				return q;
+			}
+			parent[p] = grandParent;
+			p = grandParent;
+		}
+		return p;
+	}
+
+	// the TOP/BOTTOM bits of the given root
+	int flags(int root) {
+		return ~parent[root] & FLAG_MASK;
+	}
+
+	// sets the given bits on the given root
+	void addFlags(int root, int flags) {
+		parent[root] &= ~flags;
+	}
+
+	// joins the components of p and q, merging their flags, and returns the new root
+	int union(int p, int q) {
+		int rootP = find(p);
+		int rootQ = find(q);
+
+		if (rootP == rootQ) {
+			return rootP;
+		}
+
+		int rankP = ~parent[rootP] >>> FLAG_BITS;
+		int rankQ = ~parent[rootQ] >>> FLAG_BITS;
+		int flags = flags(rootP) | flags(rootQ);
+
+		if (rankP < rankQ) {
+			parent[rootP] = rootQ;
+			addFlags(rootQ, flags);
+			return rootQ;
+		}
+
+		parent[rootQ] = rootP;
+		if (rankP == rankQ) {
+			rankP++;
+		}
+		parent[rootP] = ~(rankP << FLAG_BITS | flags);
+		return rootP;
+	}
+
+	// heap used by the parent array
+	long bytes() {
+		return (long) Integer.BYTES * parent.length;
+	}
+}
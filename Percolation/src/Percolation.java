@@ -1,14 +1,15 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
 public class Percolation {
-	private boolean[][] grid;
-	private boolean[][] fullSites;
+	// largest n for which the n * n site indices still fit in an int
+	static final int MAX_LENGTH = 46340;
+
+	// open sites, one bit per site in row-major order
+	private final long[] openSites;
 
-	private final WeightedQuickUnionUF quickUnion;
+	private final PackedUnionFind quickUnion;
 	private final int length;
 
-	private final int[] neighbours = { -1, 1 };
-	private final int topVertexIndex;
+	private int numberOfOpenSites;
+	private boolean percolates;
 
 	// creates n-by-n grid, with all sites initially blocked
 	public Percolation(int n) {
@@ -16,12 +17,13 @@ public class Percolation {
 		if (n <= 0) {
 			throw new IllegalArgumentException("N must be positive");
 		}
+		if (n > MAX_LENGTH) {
+			throw new IllegalArgumentException("N must be at most " + MAX_LENGTH);
+		}
 
 		this.length = n;
-		this.grid = new boolean[this.length][this.length];
-		this.fullSites = new boolean[this.length][this.length];
-		this.quickUnion = new WeightedQuickUnionUF(n * n + 1);
-		this.topVertexIndex = n * n;
+		this.openSites = new long[(n * n + Long.SIZE - 1) / Long.SIZE];
+		this.quickUnion = new PackedUnionFind(n * n);
 	}
 
 	// opens the site (row, col) if it is not open already
@@ -31,50 +33,60 @@ public class Percolation {
 			return;
 		}
 
-		row = row - 1;
-		col = col - 1;
-
-		isOutsideRange(row, col);
-
-		grid[row][col] = true;
-		unionWithNeighbours(row, col);
-
-		int index = row * this.length + col;
-
-		if (quickUnion.connected(index, topVertexIndex)) {
-			fullSites[row][col] = true;
-		}
+		openIndex((row - 1) * this.length + col - 1);
 	}
 
-	private void unionWithNeighbours(int row, int col) {
-		for (int i = 0; i < neighbours.length; i++) {
-			int newRow = row + neighbours[i];
-			int newCol = col + neighbours[i];
-			if (newRow >= 0 && newRow < this.length && isOpenRealNums(newRow, col)) {
-				connect(row, col, newRow, col);
-			}
-			if (newCol >= 0 && newCol < this.length && isOpenRealNums(row, newCol)) {
-				connect(row, col, row, newCol);
+	/*
+	 * opens every site of the array, given as 0-based row-major indices (row * n +
+	 * col). The indices are not range checked, sites already open are skipped
+	 */
+	public void open(int[] sites) {
+		for (int site : sites) {
+			if (!isOpenIndex(site)) {
+				openIndex(site);
 			}
 		}
+	}
 
-		if (row == 0) {
-			connectToVirtualVertex(row, col);
-		}
+	// opens the blocked site at the given 0-based row-major index
+	private void openIndex(int index) {
+		int row = index / this.length;
 
+		openSites[index >>> 6] |= 1L << index;
+		numberOfOpenSites++;
+		unionWithNeighbours(row, index - row * this.length, index);
 	}
 
-	private void connectToVirtualVertex(int row, int col) {
-		int index = row * this.length + col;
+	/*
+	 * union the site with its open neighbours. The union-find merges the top/bottom
+	 * flags of every joined component into the new root
+	 */
+	private void unionWithNeighbours(int row, int col, int index) {
+		int root = quickUnion.find(index);
 
-		quickUnion.union(index, topVertexIndex);
-	}
+		if (row == 0) {
+			quickUnion.addFlags(root, PackedUnionFind.TOP);
+		}
+		if (row == this.length - 1) {
+			quickUnion.addFlags(root, PackedUnionFind.BOTTOM);
+		}
 
-	private void connect(int row, int col, int neighbourRow, int neighbourCol) {
-		int index = row * this.length + col;
-		int neighbourIndex = neighbourRow * this.length + neighbourCol;
+		if (row > 0 && isOpenIndex(index - this.length)) {
+			root = quickUnion.union(index, index - this.length);
+		}
+		if (row < this.length - 1 && isOpenIndex(index + this.length)) {
+			root = quickUnion.union(index, index + this.length);
+		}
+		if (col > 0 && isOpenIndex(index - 1)) {
+			root = quickUnion.union(index, index - 1);
+		}
+		if (col < this.length - 1 && isOpenIndex(index + 1)) {
+			root = quickUnion.union(index, index + 1);
+		}
 
-		quickUnion.union(index, neighbourIndex);
+		if (quickUnion.flags(root) == (PackedUnionFind.TOP | PackedUnionFind.BOTTOM)) {
+			percolates = true;
+		}
 
 	}
 
@@ -92,14 +104,14 @@ public class Percolation {
 		col = col - 1;
 
 		isOutsideRange(row, col);
-		return isOpenRealNums(row, col);
+		return isOpenIndex(row * this.length + col);
 	}
 
-	private boolean isOpenRealNums(int row, int col) {
-		return this.grid[row][col] == true;
+	private boolean isOpenIndex(int index) {
+		return (openSites[index >>> 6] & (1L << index)) != 0;
 	}
 
-	// is the site (row, col) full?
+	// is the site (row, col) full? True when its component touches the top row
 	public boolean isFull(int row, int col) {
 
 		row = row - 1;
@@ -107,34 +119,30 @@ public class Percolation {
 
 		isOutsideRange(row, col);
 
-		return fullSites[row][col];
+		int index = row * this.length + col;
+
+		if (!isOpenIndex(index)) {
+			return false;
+		}
+
+		return (quickUnion.flags(quickUnion.find(index)) & PackedUnionFind.TOP) != 0;
 
 	}
 
 	// returns the number of open sites
 	public int numberOfOpenSites() {
-
-		int count = 0;
-		for (int i = 0; i < grid.length; i++) {
-			for (int j = 0; j < grid[i].length; j++) {
-				if (grid[i][j] == true) {
-					count++;
-				}
-			}
-		}
-		return count;
+		return numberOfOpenSites;
 	}
 
-	// does the system percolate?
+	// does the system percolate? Tracked on every open, so this is constant time
 	public boolean percolates() {
+		return percolates;
+	}
 
-		for (int i = 1; i <= this.length; i++) {
-			if (isFull(this.length, i)) {
-				return true;
-			}
-		}
-
-		return false;
+	// heap used per site by the open bits and the union-find
+	public double bytesPerSite() {
+		long bytes = (long) Long.BYTES * openSites.length + quickUnion.bytes();
+		return (double) bytes / ((long) this.length * this.length);
 	}
 
 	public static void main(String[] args) {
@@ -155,6 +163,13 @@ public class Percolation {
 		p.open(3, 1);
 		System.out.println(p.isFull(3, 1));
 		System.out.println(p.percolates());
+		System.out.println(p.numberOfOpenSites());
+		System.out.println(p.bytesPerSite());
+
+		Percolation batch = new Percolation(3);
+		batch.open(new int[] { 2, 5, 8, 5 });
+		System.out.println(batch.numberOfOpenSites());
+		System.out.println(batch.percolates());
 
 	}
 
@@ -0,0 +1,65 @@
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+/*
+ * Timing client for Percolation, PercolationThreshold and PercolationStats.
+ * Every case is run a few times to warm up and then measured; the results go to
+ * standard output as CSV so that runs can be compared by a script.
+ *
+ * Execution: java PercolationBenchmark [rounds]
+ */
+public class PercolationBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+	private static final long SEED = 20200101L;
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+		System.out.println("benchmark,param,ops,best_ns_per_op,mean_ns_per_op");
+
+		for (int n : new int[] { 100, 400, 1000 }) {
+			int[] order = randomOrder(n, new SplittableRandom(SEED));
+
+			measure("Percolation.open+percolates", n, rounds, () -> {
+				Percolation p = new Percolation(n);
+				int opened = 0;
+				while (!p.percolates()) {
+					int site = order[opened++];
+					p.open(site / n + 1, site % n + 1);
+				}
+				return opened;
+			});
+
+			PercolationThreshold threshold = new PercolationThreshold(n);
+			measure("PercolationThreshold.percolationStep", n, rounds, () -> threshold.percolationStep(order));
+		}
+
+		for (int n : new int[] { 50, 200 }) {
+			int trials = 100;
+			measure("PercolationStats", n, rounds, () -> {
+				PercolationStats stats = new PercolationStats(n, trials, SEED);
+				Benchmark.consume(Double.doubleToLongBits(stats.mean()));
+				return trials;
+			});
+		}
+
+	}
+
+	// a random permutation of the n * n site indices
+	private static int[] randomOrder(int n, SplittableRandom random) {
+		int[] order = new int[n * n];
+		for (int i = 0; i < order.length; i++) {
+			int pick = random.nextInt(i + 1);
+			order[i] = order[pick];
+			order[pick] = i;
+		}
+		return order;
+	}
+
+	// runs the case and prints one CSV row; the case returns the number of operations it did
+	private static void measure(String benchmark, int param, int rounds, LongSupplier run) {
+		Benchmark.Timing timing = Benchmark.time(WARMUP_ROUNDS, rounds, run);
+		System.out.printf("%s,%d,%d,%.1f,%.1f%n", benchmark, param, timing.ops, timing.bestNanosPerOp,
+				timing.meanNanosPerOp);
+	}
+}
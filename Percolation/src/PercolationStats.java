@@ -1,78 +1,235 @@
-import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class PercolationStats {
 	private static final double CONFIDENCE_95 = 1.96;
+	// trials handed to the workers per round in parallel mode
+	private static final int BATCH_SIZE = 1024;
+	// the adaptive mode does not trust the interval of fewer trials than this
+	private static final int MIN_ADAPTIVE_TRIALS = 30;
 
-	private final double[] sum;
-	private double mean = -1.0;
-	private double stddev = -1.0;
+	// running statistics (Welford), updated in trial order
+	private int trials;
+	private double mean;
+	private double squaredDeviations;
 
 	// perform independent trials on an n-by-n grid
 	public PercolationStats(int n, int trials) {
+		this(n, trials, new SplittableRandom().nextLong());
+	}
+
+	// perform independent trials on an n-by-n grid, reproducible for a given seed
+	public PercolationStats(int n, int trials, long seed) {
+		this(n, trials, seed, 1);
+	}
+
+	/*
+	 * perform independent trials on an n-by-n grid spread over the given number of
+	 * worker threads. Every trial draws from its own random stream derived from the
+	 * seed and its trial number, so the results do not depend on the worker count.
+	 */
+	public PercolationStats(int n, int trials, long seed, int workers) {
 
-		if (n <= 0 || trials <= 0) {
+		if (n <= 0 || trials <= 0 || workers <= 0) {
 			throw new IllegalArgumentException("The parameters must be positive numbers");
 		}
+		checkLength(n);
 
-		this.sum = new double[trials];
-		int completedTrials = 0;
+		runTrials(n, trials, 0.0, seed, workers);
+	}
+
+	/*
+	 * perform trials on an n-by-n grid until the half-width of the 95% confidence
+	 * interval drops below epsilon, or until maxTrials trials have run
+	 */
+	public PercolationStats(int n, double epsilon, int maxTrials, long seed, int workers) {
 
-		while (completedTrials < trials) {
-			Percolation p = new Percolation(n);
-			double cnt = 0;
-			while (!p.percolates()) {
-				int i = StdRandom.uniform(n) + 1;
-				int j = StdRandom.uniform(n) + 1;
+		if (n <= 0 || !(epsilon > 0) || maxTrials <= 0 || workers <= 0) {
+			throw new IllegalArgumentException("The parameters must be positive numbers");
+		}
+		checkLength(n);
+
+		runTrials(n, maxTrials, epsilon, seed, workers);
+	}
+
+	// the grid's site indices must fit in an int, as for Percolation
+	private static void checkLength(int n) {
+		if (n > Percolation.MAX_LENGTH) {
+			throw new IllegalArgumentException("N must be at most " + Percolation.MAX_LENGTH);
+		}
+	}
 
-				if (!p.isOpen(i, j)) {
-					p.open(i, j);
-					cnt++;
+	private void runTrials(int n, int maxTrials, double epsilon, long seed, int workers) {
+
+		if (workers == 1) {
+			TrialRunner runner = new TrialRunner(n);
+			for (int trial = 0; trial < maxTrials && !isPreciseEnough(epsilon); trial++) {
+				add(runner.run(trialRandom(seed, trial)));
+			}
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		TrialRunner[] runners = new TrialRunner[workers];
+		double[] batch = new double[Math.min(BATCH_SIZE, maxTrials)];
+
+		try {
+			for (int first = 0; first < maxTrials && !isPreciseEnough(epsilon); first += batch.length) {
+				int size = Math.min(batch.length, maxTrials - first);
+				runBatch(pool, runners, n, seed, first, batch, size);
+
+				// folding in trial order keeps the results equal to the sequential run
+				for (int i = 0; i < size && !isPreciseEnough(epsilon); i++) {
+					add(batch[i]);
 				}
 			}
-			sum[completedTrials] = cnt / (n * n);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// runs trials first .. first + size - 1 on the pool, worker w takes every workers-th trial
+	private static void runBatch(ForkJoinPool pool, TrialRunner[] runners, int n, long seed, int first,
+			double[] batch, int size) {
 
-			completedTrials++;
+		List<Future<?>> results = new ArrayList<>();
+		for (int worker = 0; worker < runners.length; worker++) {
+			int w = worker;
+			results.add(pool.submit(() -> {
+				if (runners[w] == null) {
+					runners[w] = new TrialRunner(n);
+				}
+				for (int i = w; i < size; i += runners.length) {
+					batch[i] = runners[w].run(trialRandom(seed, first + i));
+				}
+			}));
 		}
 
+		try {
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running trials", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A trial failed", e.getCause());
+		}
+	}
+
+	/*
+	 * random stream of one trial, depending only on the seed and the trial number.
+	 * The seed is mixed first because streams seeded with nearby values overlap.
+	 */
+	private static SplittableRandom trialRandom(long seed, int trial) {
+		return new SplittableRandom(new SplittableRandom(seed + trial).nextLong());
+	}
+
+	/*
+	 * one threshold engine plus a buffer for the opening order, both reused for
+	 * every trial a worker runs. Each is an int per site, so a worker needs about 8
+	 * bytes per site, twice what a Percolation takes, and every worker has its own
+	 * runner: a 4 GB heap holds n = 18000 with one worker but not n = 19000, and in
+	 * general n up to about sqrt(heap / (13 * workers)).
+	 */
+	private static class TrialRunner {
+		private final PercolationThreshold threshold;
+		private final int[] sites;
+
+		TrialRunner(int n) {
+			this.threshold = new PercolationThreshold(n);
+			this.sites = new int[n * n];
+		}
+
+		/*
+		 * shuffles the sites into a random opening order and returns the fraction of
+		 * them open when the system first percolates. The Fisher-Yates shuffle starts
+		 * from the identity each time, which keeps a trial's result independent of the
+		 * trials the worker ran before it.
+		 */
+		double run(SplittableRandom random) {
+			for (int i = 0; i < sites.length; i++) {
+				sites[i] = i;
+			}
+			for (int i = 0; i < sites.length - 1; i++) {
+				int pick = i + random.nextInt(sites.length - i);
+				int site = sites[pick];
+				sites[pick] = sites[i];
+				sites[i] = site;
+			}
+
+			return (double) threshold.percolationStep(sites) / sites.length;
+		}
+	}
+
+	// Welford's update of the running mean and sum of squared deviations
+	private void add(double threshold) {
+		trials++;
+		double delta = threshold - mean;
+		mean += delta / trials;
+		squaredDeviations += delta * (threshold - mean);
+	}
+
+	private boolean isPreciseEnough(double epsilon) {
+		return trials >= MIN_ADAPTIVE_TRIALS && halfWidth() < epsilon;
+	}
+
+	// half-width of the 95% confidence interval
+	private double halfWidth() {
+		return CONFIDENCE_95 * stddev() / Math.sqrt(trials);
+	}
+
+	// number of trials the statistics are based on
+	public int trials() {
+		return trials;
 	}
 
 	// sample mean of percolation threshold
 	public double mean() {
-		if (this.mean == -1.0) {
-			this.mean = StdStats.mean(sum);
-		}
-		return this.mean;
+		return mean;
 	}
 
 	// sample standard deviation of percolation threshold
 	public double stddev() {
-		if (this.stddev == -1.0) {
-			this.stddev = StdStats.stddev(sum);
-		}
-		return this.stddev;
+		return Math.sqrt(squaredDeviations / (trials - 1));
 	}
 
 	// low endpoint of 95% confidence interval
 	public double confidenceLo() {
-		double mean = mean();
-		double stdDev = stddev();
-		return mean - (CONFIDENCE_95 * stdDev / Math.sqrt(sum.length));
+		return mean() - halfWidth();
 	}
 
 	// high endpoint of 95% confidence interval
 	public double confidenceHi() {
-		double mean = mean();
-		double stdDev = stddev();
-		return mean + (CONFIDENCE_95 * stdDev / Math.sqrt(sum.length));
+		return mean() + halfWidth();
 	}
 
-	// test client (see below)
+	/*
+	 * test client (see below), optionally followed by a seed, a worker count and a
+	 * target half-width, which turns the trial count into an upper bound
+	 */
 	public static void main(String[] args) {
 		int n = Integer.parseInt(args[0]);
 		int trials = Integer.parseInt(args[1]);
 
-		PercolationStats ps = new PercolationStats(n, trials);
+		PercolationStats ps;
+		if (args.length > 2) {
+			long seed = Long.parseLong(args[2]);
+			int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			if (args.length > 4) {
+				ps = new PercolationStats(n, Double.parseDouble(args[4]), trials, seed, workers);
+			} else {
+				ps = new PercolationStats(n, trials, seed, workers);
+			}
+		} else {
+			ps = new PercolationStats(n, trials);
+		}
+
+		System.out.printf("trials                  = %d%n", ps.trials());
 		System.out.printf("mean                    = %f%n", ps.mean());
 		System.out.printf("stddev                  = %f%n", ps.stddev());
 		System.out.printf("95%% confidence interval = [%f, %f]", ps.confidenceLo(), ps.confidenceHi());
@@ -0,0 +1,94 @@
+import java.util.Arrays;
+
+/*
+ * Fast path for statistics runs. Given the complete order in which the sites of
+ * an n-by-n grid open, it finds in one pass how many sites are open when the
+ * system first percolates. It unions in order and only checks whether the new
+ * root touches both the top and the bottom row, without the per-call argument
+ * handling of Percolation. One instance can be reused for any number of orders.
+ */
+public class PercolationThreshold {
+
+	private final int length;
+	private final long[] openSites;
+	private final PackedUnionFind quickUnion;
+
+	private boolean used;
+
+	public PercolationThreshold(int n) {
+
+		if (n <= 0) {
+			throw new IllegalArgumentException("N must be positive");
+		}
+		if (n > Percolation.MAX_LENGTH) {
+			throw new IllegalArgumentException("N must be at most " + Percolation.MAX_LENGTH);
+		}
+
+		this.length = n;
+		this.openSites = new long[(n * n + Long.SIZE - 1) / Long.SIZE];
+		this.quickUnion = new PackedUnionFind(n * n);
+	}
+
+	/*
+	 * number of sites open at the first step the system percolates when the sites
+	 * open in the given order of 0-based row-major indices, or -1 if it never does.
+	 * The order must not repeat a site and is not range checked.
+	 */
+	public int percolationStep(int[] order) {
+
+		if (used) {
+			Arrays.fill(openSites, 0L);
+			quickUnion.reset();
+		}
+		used = true;
+
+		int bottomRow = (this.length - 1) * this.length;
+
+		for (int step = 0; step < order.length; step++) {
+			int index = order[step];
+			int col = index % this.length;
+
+			openSites[index >>> 6] |= 1L << index;
+
+			int root = index;
+			if (index < this.length) {
+				quickUnion.addFlags(root, PackedUnionFind.TOP);
+			}
+			if (index >= bottomRow) {
+				quickUnion.addFlags(root, PackedUnionFind.BOTTOM);
+			}
+
+			if (index >= this.length && isOpen(index - this.length)) {
+				root = quickUnion.union(index, index - this.length);
+			}
+			if (index < bottomRow && isOpen(index + this.length)) {
+				root = quickUnion.union(index, index + this.length);
+			}
+			if (col > 0 && isOpen(index - 1)) {
+				root = quickUnion.union(index, index - 1);
+			}
+			if (col < this.length - 1 && isOpen(index + 1)) {
+				root = quickUnion.union(index, index + 1);
+			}
+
+			if (quickUnion.flags(root) == (PackedUnionFind.TOP | PackedUnionFind.BOTTOM)) {
+				return step + 1;
+			}
+		}
+
+		return -1;
+	}
+
+	private boolean isOpen(int index) {
+		return (openSites[index >>> 6] & (1L << index)) != 0;
+	}
+
+	public static void main(String[] args) {
+		PercolationThreshold threshold = new PercolationThreshold(3);
+
+		System.out.println(threshold.percolationStep(new int[] { 0, 4, 2, 5, 8 }));
+		System.out.println(threshold.percolationStep(new int[] { 6, 3, 0 }));
+		System.out.println(threshold.percolationStep(new int[] { 0, 1, 2 }));
+
+	}
+}
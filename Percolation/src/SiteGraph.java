@@ -0,0 +1,22 @@
+/*
+ * The sites of a percolation system and the bonds between them. Sites are
+ * numbered 0 .. sites() - 1. Fluid enters at the source sites and the system
+ * percolates once an open path links a source site to a sink site.
+ */
+public interface SiteGraph {
+
+	// number of sites
+	int sites();
+
+	// largest number of neighbours any site has
+	int maxDegree();
+
+	// writes the neighbours of the site into the buffer and returns how many there are
+	int neighbours(int site, int[] buffer);
+
+	// is the site one of the sources?
+	boolean isSource(int site);
+
+	// is the site one of the sinks?
+	boolean isSink(int site);
+}
@@ -0,0 +1,126 @@
+/*
+ * Percolation on any SiteGraph, with the same open/isFull/percolates semantics
+ * as Percolation: a site is full when an open path joins it to a source, and the
+ * system percolates once some sink is full. Sites are 0-based. Built on the same
+ * packed union-find, with source and sink bits on the roots, and opening a site
+ * allocates nothing.
+ */
+public class SitePercolation {
+
+	private final SiteGraph graph;
+	private final long[] openSites;
+	private final PackedUnionFind quickUnion;
+	// scratch space for the neighbours of the site being opened
+	private final int[] neighbours;
+
+	private int numberOfOpenSites;
+	private boolean percolates;
+
+	// creates the system with all sites initially blocked
+	public SitePercolation(SiteGraph graph) {
+
+		if (graph == null || graph.sites() <= 0) {
+			throw new IllegalArgumentException("The graph must have sites");
+		}
+
+		this.graph = graph;
+		this.openSites = new long[(graph.sites() + Long.SIZE - 1) / Long.SIZE];
+		this.quickUnion = new PackedUnionFind(graph.sites());
+		this.neighbours = new int[graph.maxDegree()];
+	}
+
+	// opens the site if it is not open already
+	public void open(int site) {
+
+		if (isOpen(site)) {
+			return;
+		}
+
+		openSites[site >>> 6] |= 1L << site;
+		numberOfOpenSites++;
+
+		int root = quickUnion.find(site);
+		if (graph.isSource(site)) {
+			quickUnion.addFlags(root, PackedUnionFind.TOP);
+		}
+		if (graph.isSink(site)) {
+			quickUnion.addFlags(root, PackedUnionFind.BOTTOM);
+		}
+
+		int count = graph.neighbours(site, neighbours);
+		for (int i = 0; i < count; i++) {
+			if (isOpenSite(neighbours[i])) {
+				root = quickUnion.union(site, neighbours[i]);
+			}
+		}
+
+		if (quickUnion.flags(root) == (PackedUnionFind.TOP | PackedUnionFind.BOTTOM)) {
+			percolates = true;
+		}
+	}
+
+	// is the site open?
+	public boolean isOpen(int site) {
+		isOutsideRange(site);
+		return isOpenSite(site);
+	}
+
+	private boolean isOpenSite(int site) {
+		return (openSites[site >>> 6] & (1L << site)) != 0;
+	}
+
+	// is the site full, i.e. joined to a source by open sites?
+	public boolean isFull(int site) {
+
+		if (!isOpen(site)) {
+			return false;
+		}
+
+		return (quickUnion.flags(quickUnion.find(site)) & PackedUnionFind.TOP) != 0;
+	}
+
+	// returns the number of open sites
+	public int numberOfOpenSites() {
+		return numberOfOpenSites;
+	}
+
+	// does the system percolate?
+	public boolean percolates() {
+		return percolates;
+	}
+
+	// must be in the interval (0, sites - 1)
+	private void isOutsideRange(int site) {
+		if (site < 0 || site >= graph.sites()) {
+			throw new IllegalArgumentException("There is an argument outside of range");
+		}
+	}
+
+	public static void main(String[] args) {
+		// a vertical column through a 3x3x3 cube
+		SitePercolation cube = new SitePercolation(Lattice.cubic(3));
+		cube.open(4);
+		cube.open(13);
+		System.out.println(cube.isFull(13));
+		System.out.println(cube.percolates());
+		cube.open(22);
+		System.out.println(cube.percolates());
+
+		// a diagonal only percolates with 8-connectivity
+		SitePercolation diagonal = new SitePercolation(Lattice.squareWithDiagonals(2));
+		diagonal.open(0);
+		diagonal.open(3);
+		System.out.println(diagonal.percolates());
+
+		// path 0 - 1 - 2 with source 0 and sink 2
+		int[] offsets = { 0, 1, 3, 4 };
+		int[] targets = { 1, 0, 2, 1 };
+		SitePercolation path = new SitePercolation(new CsrSiteGraph(offsets, targets, new int[] { 0 }, new int[] { 2 }));
+		path.open(2);
+		path.open(0);
+		System.out.println(path.isFull(2));
+		path.open(1);
+		System.out.println(path.isFull(2) + " " + path.percolates());
+
+	}
+}
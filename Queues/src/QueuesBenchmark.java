@@ -0,0 +1,66 @@
+import java.util.function.LongSupplier;
+
+/*
+ * Timing client for Deque and RandomizedQueue. Each case fills a structure with
+ * the given number of items and drains it again; the cost per operation goes to
+ * standard output as CSV.
+ *
+ * Execution: java QueuesBenchmark
+ */
+public class QueuesBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        System.out.println("benchmark,items,ops,best_ns_per_op,mean_ns_per_op");
+
+        for (int items = 1000; items <= 1000000; items *= 10) {
+            int size = items;
+
+            measure("Deque.addFirst+removeLast", size, () -> {
+                Deque<Integer> deque = new Deque<Integer>();
+                for (int i = 0; i < size; i++) {
+                    deque.addFirst(i);
+                }
+                long sum = 0;
+                while (!deque.isEmpty()) {
+                    sum += deque.removeLast();
+                }
+                Benchmark.consume(sum);
+                return 2L * size;
+            });
+
+            measure("Deque.iterator", size, () -> {
+                Deque<Integer> deque = new Deque<Integer>();
+                for (int i = 0; i < size; i++) {
+                    deque.addLast(i);
+                }
+                long sum = 0;
+                for (int item : deque) {
+                    sum += item;
+                }
+                Benchmark.consume(sum);
+                return 2L * size;
+            });
+
+            measure("RandomizedQueue.enqueue+dequeue", size, () -> {
+                RandomizedQueue<Integer> queue = new RandomizedQueue<Integer>();
+                for (int i = 0; i < size; i++) {
+                    queue.enqueue(i);
+                }
+                long sum = 0;
+                while (!queue.isEmpty()) {
+                    sum += queue.dequeue();
+                }
+                Benchmark.consume(sum);
+                return 2L * size;
+            });
+        }
+    }
+
+    private static void measure(String benchmark, int items, LongSupplier run) {
+        Benchmark.Timing timing = Benchmark.time(WARMUP_ROUNDS, ROUNDS, run);
+        System.out.printf("%s,%d,%d,%.1f,%.1f%n", benchmark, items, timing.ops, timing.bestNanosPerOp,
+                timing.meanNanosPerOp);
+    }
+}